@@ -1,15 +1,24 @@
 package cn.gitlab.virtualcry.reactor.bus;
 
+import cn.gitlab.virtualcry.reactor.bus.selector.HeaderResolver;
 import cn.gitlab.virtualcry.reactor.bus.support.Assert;
+import cn.gitlab.virtualcry.reactor.bus.support.IdGenerators;
 import lombok.Getter;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
 
 /**
  * Wrapper for an object that needs to be processed by {@link java.util.function.Consumer}s.
+ * <p/>
+ * The id of an event is only generated on the first call to {@link #getId()}, by the generator set with
+ * {@link #setIdGenerator(Supplier)}; its creation time is kept as epoch milliseconds.
  *
  * @param <T>
  *     The type of the wrapped object
@@ -22,10 +31,12 @@ import java.util.*;
 @Getter
 public class Event<T> implements Serializable {
 
-    private final UUID                              id
-            = UUID.randomUUID();
-    private final Date                              creationDate
-            = new Date();
+    private static volatile Supplier<UUID>          idGenerator
+            = IdGenerators.random();
+
+    private volatile UUID                           id;
+    private final long                              timestamp
+            = System.currentTimeMillis();
     private final Headers                           headers;
     private final T                                 data;
 
@@ -104,6 +115,43 @@ public class Event<T> implements Serializable {
     }
 
 
+    /**
+     * Set the generator of the ids of events, for the ids generated from now on. Defaults to
+     * {@link IdGenerators#random()}.
+     *
+     * @param generator
+     *     The id generator.
+     */
+    public static void setIdGenerator(Supplier<UUID> generator) {
+        Assert.notNull(generator, "Id generator cannot be null.");
+        idGenerator = generator;
+    }
+
+
+    /**
+     * Get the unique id of this event, generating it on the first call.
+     *
+     * @return The id
+     */
+    public UUID getId() {
+        UUID id = this.id;
+        if (null == id) {
+            ID.compareAndSet(this, null, idGenerator.get());
+            id = this.id;
+        }
+        return id;
+    }
+
+    /**
+     * Get the time this event was created.
+     *
+     * @return A new {@link Date} of the creation time
+     */
+    public Date getCreationDate() {
+        return new Date(getTimestamp());
+    }
+
+
     /**
      * Get the key to send replies to.
      *
@@ -148,7 +196,7 @@ public class Event<T> implements Serializable {
      * @return {@literal event copy}
      */
     public Event<T> copy() {
-        return copy(data);
+        return copy(getData());
     }
 
     /**
@@ -165,21 +213,43 @@ public class Event<T> implements Serializable {
     }
     
 
+    /**
+     * Clear the id, keys and headers of this event, for it to be reused.
+     */
+    void recycle() {
+        this.id = null;
+        this.key = null;
+        this.replyTo = null;
+        this.headers.clear();
+    }
+
+
     @Override
     public String toString() {
         return "Event{" +
-                "id=" + id +
+                "id=" + getId() +
                 ", headers=" + headers +
                 ", replyTo=" + replyTo +
                 ", key=" + key +
-                ", data=" + data +
+                ", data=" + getData() +
                 '}';
     }
 
 
+    private static final AtomicReferenceFieldUpdater<Event, UUID> ID =
+            AtomicReferenceFieldUpdater.newUpdater(Event.class, UUID.class, "id");
+
+
     /**
-     * Headers are a Map-like structure of name-value pairs. Header names are case-insensitive, as determined by {@link
-     * String#CASE_INSENSITIVE_ORDER}. A header can be removed by setting its value to {@code null}.
+     * Headers are a Map-like structure of name-value pairs. Header names are case-insensitive: they are stored in lower
+     * case, as determined by {@link String#toLowerCase(Locale) String.toLowerCase(Locale.ROOT)}. A header can be removed
+     * by setting its value to {@code null}.
+     * <p/>
+     * The headers are kept in a small array of alternating names and values that is replaced as a whole on every
+     * change, so reads take no lock and see a consistent snapshot, and concurrent writers retry instead of blocking.
+     * <p/>
+     * Headers encoded in the notification key are contributed by {@link HeaderResolver}s that are only run on the first
+     * read or write after they were added, and at most once per key, so they cost nothing until a header is needed.
      */
     public static class Headers implements Serializable, Iterable<Tuple2<String, Object>> {
 
@@ -192,17 +262,17 @@ public class Event<T> implements Serializable {
          */
         public static final String ORIGIN = "x-reactor-origin";
 
-        private final Object monitor = UUID.randomUUID();
-        private final Map<String, Object> headers;
+        private static final Object[] EMPTY = new Object[0];
 
-        private Headers(boolean sealed, Map<String, Object> headers) {
-            Map<String, Object> copy = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
-            copyHeaders(headers, copy);
-            if (sealed) {
-                this.headers = Collections.unmodifiableMap(copy);
-            } else {
-                this.headers = copy;
-            }
+        private final boolean sealed;
+        private volatile Object[] entries;
+        // the header resolvers and the keys to resolve, in pairs, and how many pairs were resolved already.
+        private transient volatile Object[] resolvers;
+        private transient volatile int resolved;
+
+        private Headers(boolean sealed, Object[] entries) {
+            this.sealed = sealed;
+            this.entries = entries;
         }
 
         /**
@@ -213,14 +283,14 @@ public class Event<T> implements Serializable {
          *     The map to copy.
          */
         public Headers(Map<String, Object> headers) {
-            this(false, headers);
+            this(false, null == headers ? EMPTY : copyHeaders(headers, EMPTY));
         }
 
         /**
          * Create an empty Headers
          */
         public Headers() {
-            this(false, null);
+            this(false, EMPTY);
         }
 
         /**
@@ -235,11 +305,13 @@ public class Event<T> implements Serializable {
         public Headers setAll(Map<String, Object> headers) {
             if (null == headers || headers.isEmpty()) {
                 return this;
-            } else {
-                synchronized (this.monitor) {
-                    copyHeaders(headers, this.headers);
-                }
             }
+            checkNotSealed();
+            resolvePending();
+            Object[] entries;
+            do {
+                entries = this.entries;
+            } while (!ENTRIES.compareAndSet(this, entries, copyHeaders(headers, entries)));
             return this;
         }
 
@@ -254,9 +326,13 @@ public class Event<T> implements Serializable {
          * @return {@code this}
          */
         public <V> Headers set(String name, V value) {
-            synchronized (this.monitor) {
-                setHeader(name, value, headers);
-            }
+            checkNotSealed();
+            resolvePending();
+            String key = normalize(name);
+            Object[] entries;
+            do {
+                entries = this.entries;
+            } while (!ENTRIES.compareAndSet(this, entries, setHeader(key, value, entries)));
             return this;
         }
 
@@ -280,9 +356,7 @@ public class Event<T> implements Serializable {
          * @return The origin header, may be {@code null}.
          */
         public String getOrigin() {
-            synchronized (this.monitor) {
-                return (String) headers.get(ORIGIN);
-            }
+            return get(ORIGIN);
         }
 
         /**
@@ -295,10 +369,7 @@ public class Event<T> implements Serializable {
          * @return {@code this}
          */
         public Headers setOrigin(String id) {
-            synchronized (this.monitor) {
-                setHeader(ORIGIN, id, headers);
-            }
-            return this;
+            return set(ORIGIN, id);
         }
 
         /**
@@ -311,9 +382,10 @@ public class Event<T> implements Serializable {
          */
         @SuppressWarnings("unchecked")
         public <V> V get(String name) {
-            synchronized (monitor) {
-                return (V) headers.get(name);
-            }
+            resolvePending();
+            Object[] entries = this.entries;
+            int index = indexOf(normalize(name), entries);
+            return index < 0 ? null : (V) entries[index + 1];
         }
 
         /**
@@ -325,20 +397,19 @@ public class Event<T> implements Serializable {
          * @return {@code true} if a value exists, {@code false} otherwise.
          */
         public boolean contains(String name) {
-            synchronized (monitor) {
-                return headers.containsKey(name);
-            }
+            resolvePending();
+            return indexOf(normalize(name), entries) >= 0;
         }
 
         /**
-         * Get these headers as an unmodifiable {@link Map}.
+         * Get these headers as an unmodifiable {@link Map}. The map is a snapshot of the current headers, and looks up
+         * names case-insensitively.
          *
          * @return The unmodifiable header map
          */
         public Map<String, Object> asMap() {
-            synchronized (monitor) {
-                return Collections.unmodifiableMap(headers);
-            }
+            resolvePending();
+            return new SnapshotMap(entries);
         }
 
         /**
@@ -347,43 +418,222 @@ public class Event<T> implements Serializable {
          * @return A read-only version of the headers.
          */
         public Headers readOnly() {
-            synchronized (monitor) {
-                return new Headers(true, headers);
-            }
+            resolvePending();
+            return new Headers(true, entries);
         }
 
         /**
-         * Returns an unmodifiable Iterator over a copy of this Headers' contents.
+         * Returns an unmodifiable Iterator over a snapshot of this Headers' contents.
          */
         @Override
         public Iterator<Tuple2<String, Object>> iterator() {
-            synchronized (this.monitor) {
-                List<Tuple2<String, Object>> headers = new ArrayList<Tuple2<String, Object>>(this.headers.size());
-                for (Map.Entry<String, Object> header : this.headers.entrySet()) {
-                    headers.add(Tuples.of(header.getKey(), header.getValue()));
+            resolvePending();
+            Object[] entries = this.entries;
+            return new Iterator<Tuple2<String, Object>>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < entries.length;
                 }
-                return Collections.unmodifiableList(headers).iterator();
-            }
+
+                @Override
+                public Tuple2<String, Object> next() {
+                    if (index >= entries.length)
+                        throw new NoSuchElementException();
+                    Tuple2<String, Object> header = Tuples.of((String) entries[index], entries[index + 1]);
+                    index += 2;
+                    return header;
+                }
+            };
         }
 
         @Override
         public String toString() {
-            return headers.toString();
+            return asMap().toString();
         }
 
-        private void copyHeaders(Map<String, Object> source, Map<String, Object> target) {
-            if (source != null) {
-                for (Map.Entry<String, Object> entry : source.entrySet()) {
-                    setHeader(entry.getKey(), entry.getValue(), target);
+        /**
+         * Add the headers the given resolver finds in the given key, the next time the headers are read or written. A
+         * resolver that was already added for the same key is ignored.
+         *
+         * @param resolver
+         *     The resolver of the headers.
+         * @param key
+         *     The key to resolve the headers from.
+         */
+        @SuppressWarnings("unchecked")
+        void resolveLazily(HeaderResolver<?> resolver, Object key) {
+            if (sealed) {
+                // read-only headers can't take pending changes, they fail as soon as there is something to set.
+                setAll(((HeaderResolver<Object>) resolver).resolve(key));
+                return;
+            }
+            Object[] resolvers;
+            Object[] added;
+            do {
+                resolvers = this.resolvers;
+                if (null == resolvers) {
+                    added = new Object[]{resolver, key};
+                } else {
+                    for (int i = 0; i < resolvers.length; i += 2) {
+                        if (resolvers[i] == resolver && resolvers[i + 1] == key)
+                            return;
+                    }
+                    added = Arrays.copyOf(resolvers, resolvers.length + 2);
+                    added[resolvers.length] = resolver;
+                    added[resolvers.length + 1] = key;
+                }
+            } while (!RESOLVERS.compareAndSet(this, resolvers, added));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resolvePending() {
+            Object[] resolvers = this.resolvers;
+            if (null == resolvers || resolvers.length == resolved)
+                return;
+            synchronized (this) {
+                // resolvers are only appended, so the ones past the resolved count are the pending ones.
+                resolvers = this.resolvers;
+                for (int i = resolved; i < resolvers.length; i += 2) {
+                    Map<String, Object> headers = ((HeaderResolver<Object>) resolvers[i]).resolve(resolvers[i + 1]);
+                    if (null != headers && !headers.isEmpty()) {
+                        Object[] entries;
+                        do {
+                            entries = this.entries;
+                        } while (!ENTRIES.compareAndSet(this, entries, copyHeaders(headers, entries)));
+                    }
+                    resolved = i + 2;
                 }
             }
         }
 
-        private void setHeader(String name, Object value, Map<String, Object> target) {
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            // pending resolvers are not serialized, their headers have to be in the entries.
+            resolvePending();
+            out.defaultWriteObject();
+        }
+
+        /**
+         * Remove all headers and pending resolvers, for the event to be reused.
+         */
+        void clear() {
+            this.entries = EMPTY;
+            this.resolvers = null;
+            this.resolved = 0;
+        }
+
+        private void checkNotSealed() {
+            if (sealed)
+                throw new UnsupportedOperationException("Headers are read-only.");
+        }
+
+        private static String normalize(String name) {
+            // returns the same instance when the name is already in lower case.
+            return null == name ? null : name.toLowerCase(Locale.ROOT);
+        }
+
+        private static int indexOf(String key, Object[] entries) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (Objects.equals(key, entries[i]))
+                    return i;
+            }
+            return -1;
+        }
+
+        private static Object[] copyHeaders(Map<String, Object> source, Object[] entries) {
+            for (Map.Entry<String, Object> entry : source.entrySet()) {
+                entries = setHeader(normalize(entry.getKey()), entry.getValue(), entries);
+            }
+            return entries;
+        }
+
+        private static Object[] setHeader(String key, Object value, Object[] entries) {
+            int index = indexOf(key, entries);
             if (value == null) {
-                target.remove(name);
+                if (index < 0)
+                    return entries;
+                if (entries.length == 2)
+                    return EMPTY;
+                Object[] removed = new Object[entries.length - 2];
+                System.arraycopy(entries, 0, removed, 0, index);
+                System.arraycopy(entries, index + 2, removed, index, entries.length - index - 2);
+                return removed;
+            }
+            Object[] copy;
+            if (index < 0) {
+                copy = Arrays.copyOf(entries, entries.length + 2);
+                index = entries.length;
+                copy[index] = key;
             } else {
-                target.put(name, value);
+                copy = entries.clone();
+            }
+            copy[index + 1] = value;
+            return copy;
+        }
+
+        private static final AtomicReferenceFieldUpdater<Headers, Object[]> ENTRIES =
+                AtomicReferenceFieldUpdater.newUpdater(Headers.class, Object[].class, "entries");
+        private static final AtomicReferenceFieldUpdater<Headers, Object[]> RESOLVERS =
+                AtomicReferenceFieldUpdater.newUpdater(Headers.class, Object[].class, "resolvers");
+
+
+        /**
+         * An unmodifiable map over a snapshot of the header entries.
+         */
+        private static final class SnapshotMap extends AbstractMap<String, Object> {
+            private final Object[] entries;
+
+            private SnapshotMap(Object[] entries) {
+                this.entries = entries;
+            }
+
+            @Override
+            public Object get(Object key) {
+                int index = key instanceof String ? indexOf(normalize((String) key), entries) : -1;
+                return index < 0 ? null : entries[index + 1];
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && indexOf(normalize((String) key), entries) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return entries.length / 2;
+            }
+
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                return new AbstractSet<Entry<String, Object>>() {
+                    @Override
+                    public Iterator<Entry<String, Object>> iterator() {
+                        return new Iterator<Entry<String, Object>>() {
+                            private int index;
+
+                            @Override
+                            public boolean hasNext() {
+                                return index < entries.length;
+                            }
+
+                            @Override
+                            public Entry<String, Object> next() {
+                                if (index >= entries.length)
+                                    throw new NoSuchElementException();
+                                Entry<String, Object> entry =
+                                        new SimpleImmutableEntry<>((String) entries[index], entries[index + 1]);
+                                index += 2;
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return entries.length / 2;
+                    }
+                };
             }
         }
     }
@@ -6,24 +6,41 @@ import cn.gitlab.virtualcry.reactor.bus.registry.CachingRegistry;
 import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
 import cn.gitlab.virtualcry.reactor.bus.registry.Registries;
 import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import cn.gitlab.virtualcry.reactor.bus.registry.TransientKey;
 import cn.gitlab.virtualcry.reactor.bus.routing.ConsumerFilteringRouter;
 import cn.gitlab.virtualcry.reactor.bus.routing.Router;
+import cn.gitlab.virtualcry.reactor.bus.selector.HeaderResolver;
 import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
-import cn.gitlab.virtualcry.reactor.bus.selector.Selectors;
 import cn.gitlab.virtualcry.reactor.bus.spec.EventBusSpec;
 import cn.gitlab.virtualcry.reactor.bus.support.Assert;
+import cn.gitlab.virtualcry.reactor.bus.support.HashedWheelTimer;
 import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalanceStrategy;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxProcessor;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
 import reactor.core.publisher.UnicastProcessor;
 import reactor.core.scheduler.Schedulers;
-
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -45,10 +62,17 @@ import static cn.gitlab.virtualcry.reactor.bus.spec.EventRoutingComponentSpec.ON
 @SuppressWarnings("unchecked")
 public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
 
+    private final Logger                                logger;
+
     private final UUID                                  id;
     private final Registry<Object,
             Consumer<? extends Event<?>>>               consumerRegistry;
     private final Dispatcher<Event<?>>                  dispatcher;
+    private final Consumer<Throwable>                   dispatchErrorHandler;
+
+    private final AtomicLong                            correlationIds;
+    private final ConcurrentMap<Long,
+            Consumer<? extends Event<?>>>               replyConsumers;
 
 
     /**
@@ -129,8 +153,12 @@ public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
                     @Nullable Router router,
                     @Nullable Consumer<Throwable> dispatchErrorHandler,
                     @NonNull LoadBalanceStrategy loadBalanceStrategy) {
+        this.logger = Loggers.getLogger(this.getClass());
         this.id = UUID.randomUUID();
         this.consumerRegistry = consumerRegistry;
+        this.dispatchErrorHandler = dispatchErrorHandler;
+        this.correlationIds = new AtomicLong();
+        this.replyConsumers = new ConcurrentHashMap<>();
         List<Dispatcher<Event<?>>> finalDispatchers = Optional.ofNullable(dispatchers)
                 .orElseGet(() -> {
                     Router finalRouter = router != null ? router : new ConsumerFilteringRouter(
@@ -185,7 +213,7 @@ public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
 
     @Override
     public boolean respondsToKey(final Object key) {
-        return consumerRegistry.select(key).isEmpty();
+        return consumerRegistry.respondsToKey(key);
     }
 
     @Override
@@ -194,27 +222,98 @@ public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
                                                      final Consumer<V> consumer) {
         Assert.notNull(selector, "Selector cannot be null.");
         Assert.notNull(consumer, "Consumer cannot be null.");
-        // proxy.
-        Consumer<V> proxyConsumer = ev -> {
-            if (null != selector.getHeaderResolver()) {
-                ev.getHeaders().setAll(selector.getHeaderResolver().resolve(ev.getKey()));
-            }
-            consumer.accept(ev);
-        };
         // register.
-        return consumerRegistry.register(selector, proxyConsumer);
+        return consumerRegistry.register(selector, proxy(selector, consumer));
+    }
+
+    /**
+     * Register each {@link Consumer} to be triggered when a notification matches its {@link Selector}, as one batch
+     * applied to the {@link Registry} at once.
+     *
+     * @param consumers The {@literal Selector}s and the {@literal Consumer}s to be triggered
+     * @return The {@link Registration}s, in the order of the given pairs
+     * @see Registry#registerAll(Collection)
+     */
+    public List<Registration<Object, Consumer<? extends Event<?>>>> onAll(
+            final Collection<? extends Tuple2<Selector, ? extends Consumer<? extends Event<?>>>> consumers) {
+        Assert.notNull(consumers, "Consumers cannot be null.");
+        List<Tuple2<Selector<Object>, Consumer<? extends Event<?>>>> proxies = new ArrayList<>(consumers.size());
+        for (Tuple2<Selector, ? extends Consumer<? extends Event<?>>> consumer : consumers) {
+            Assert.notNull(consumer.getT1(), "Selector cannot be null.");
+            Assert.notNull(consumer.getT2(), "Consumer cannot be null.");
+            proxies.add(Tuples.of(consumer.getT1(), proxy(consumer.getT1(), consumer.getT2())));
+        }
+        // register.
+        return consumerRegistry.registerAll(proxies);
     }
 
+    private <V extends Event<?>> Consumer<V> proxy(final Selector selector, final Consumer<V> consumer) {
+        return new SelectorConsumer<>(selector, consumer);
+    }
+
+    /**
+     * Notify this component that an {@link Event} is ready to be processed. A reply to a pending
+     * {@link #sendAndReceive(Object, Event, Consumer) sendAndReceive} is handed to its reply consumer right away, on
+     * the calling thread. Any other event is dispatched and its key selected once, by the dispatcher, which also reports
+     * a key without matches as not found. Only a key the {@link Registry} already knows to match no {@link Selector} is
+     * dropped right away, after the not-found handler ran for it. A {@link PooledEvent} is released once delivered, see
+     * {@link #borrowEvent()}.
+     *
+     * @param key The key to be matched by {@link Selector Selectors}
+     * @param ev  The {@literal Event}
+     * @return {@literal this}
+     */
     @Override
     public EventBus notify(Object key, Event<?> ev) {
         Assert.notNull(key, "Key cannot be null.");
         Assert.notNull(ev, "Event cannot be null.");
         ev.setKey(key);
+        if (key instanceof ReplyKey && reply((ReplyKey) key, ev))
+            return this;
+        if (consumerRegistry.isKnownMiss(key)) {
+            // a cached miss, selecting it again only runs the not-found handler.
+            RouteListener.selected(ev, consumerRegistry.select(key));
+            release(ev);
+            return this;
+        }
         dispatcher.onNext(ev);
         return this;
     }
 
 
+    /**
+     * Notify this component that an {@link Event} with a numeric key is ready to be processed. The key is matched by
+     * {@link cn.gitlab.virtualcry.reactor.bus.selector.LongSelector LongSelector}s without boxing when the
+     * {@link Registry} indexes them; the event still carries the key as a {@link Long}. Unlike an overload of
+     * {@link #notify(Object, Event)}, an {@code int} key passed there is still matched as an {@link Integer}. The key is
+     * selected once, by the dispatcher.
+     *
+     * @param key The key to be matched by {@link Selector Selectors}
+     * @param ev  The {@literal Event}
+     * @return {@literal this}
+     * @see Registry#selectLong(long)
+     */
+    public EventBus notifyLong(long key, Event<?> ev) {
+        Assert.notNull(ev, "Event cannot be null.");
+        ev.setKey(key);
+        dispatcher.onNext(ev);
+        return this;
+    }
+
+
+    /**
+     * Borrow an {@link Event} from the pool of the current thread, to be filled and {@link #notify(Object, Event)
+     * notified}. The event returns to the pool by itself once every consumer it was delivered to has returned, so the
+     * publishing thread keeps reusing the same events; consumers must not keep it after they returned.
+     *
+     * @return An empty event
+     * @see PooledEvent
+     */
+    public <T> PooledEvent<T> borrowEvent() {
+        return PooledEvent.borrow();
+    }
+
+
     /**
      * Pass values accepted by this {@code Stream} into the given {@link Bus}, notifying with the given key.
      *
@@ -308,10 +407,9 @@ public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
 
 
     /**
-     * Register the given {@link Consumer} on an anonymous {@link Selector} and
-     * set the given event's {@code replyTo} property to the corresponding anonymous key,
-     * then register the consumer to receive replies from the {@link Function} assigned to
-     * handle the given key.
+     * Set the given event's {@code replyTo} property to a new {@link ReplyKey}, then notify the event and hand the
+     * first reply from the {@link Function} assigned to handle the given key to the given {@link Consumer}. The reply
+     * consumer is kept in a correlation table of this bus rather than registered on a {@link Selector}.
      *
      * @param key   The key to be matched by {@link Selector Selectors}
      * @param event The event to notify.
@@ -319,16 +417,15 @@ public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
      * @return {@literal this}
      */
     public <T extends Event<?>> EventBus sendAndReceive(Object key, Event<?> event, Consumer<T> reply) {
-        Selector sel = Selectors.anonymous();
-        on(sel, reply).cancelAfterUse();
-        return notify(key, event.setReplyTo(sel.getObject()));
+        Assert.notNull(reply, "Consumer cannot be null.");
+        long correlationId = correlationIds.incrementAndGet();
+        replyConsumers.put(correlationId, reply);
+        return notify(key, event.setReplyTo(new ReplyKey(correlationId)));
     }
 
     /**
-     * Register the given {@link Consumer} on an anonymous {@link Selector} and
-     * set the event's {@code replyTo} property to the corresponding anonymous key,
-     * then register the consumer to receive replies from the {@link Function} assigned to
-     * handle the given key.
+     * Set the supplied event's {@code replyTo} property to a new {@link ReplyKey}, then notify the event and hand the
+     * first reply from the {@link Function} assigned to handle the given key to the given {@link Consumer}.
      *
      * @param key      The key to be matched by {@link Selector Selectors}
      * @param supplier The supplier to supply the event.
@@ -340,12 +437,305 @@ public class EventBus implements Bus<Event<?>>, Consumer<Event<?>> {
     }
 
 
+    /**
+     * Notify this component of the given {@link Event} on subscription, and emit the first reply from the
+     * {@link Function} assigned to handle the given key. If no reply arrives within the given timeout, the reply is
+     * no longer awaited and the returned {@link Mono} fails with a {@link TimeoutException}. Timeouts of all requests
+     * are driven by a single {@link HashedWheelTimer}.
+     *
+     * @param key     The key to be matched by {@link Selector Selectors}
+     * @param event   The event to notify.
+     * @param timeout The time to wait for the reply
+     * @return A {@link Mono} of the reply
+     */
+    public <R> Mono<Event<R>> request(Object key, Event<?> event, Duration timeout) {
+        Assert.notNull(key, "Key cannot be null.");
+        Assert.notNull(event, "Event cannot be null.");
+        Assert.notNull(timeout, "Timeout cannot be null.");
+        return Mono.create(sink -> {
+            PendingRequest<R> request = new PendingRequest<>(correlationIds.incrementAndGet(), key, sink);
+            replyConsumers.put(request.correlationId, request);
+            request.timeout = ReplyTimer.TIMER.newTimeout(request, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            sink.onCancel(request::cancel);
+            notify(key, event.setReplyTo(new ReplyKey(request.correlationId)));
+        });
+    }
+
+
+    /**
+     * Notify this component of the given {@link Event} on subscription, and emit the replies from every
+     * {@link Function} assigned to handle the given key. The number of replies to wait for is the number of
+     * {@link #receive(Selector, Function) receivers} among the registrations the dispatcher selects for the key when it
+     * routes the event, as told to the {@link RouteListener} the event replies to; the returned {@link Flux} completes
+     * once they have all replied or the given window closes, whichever comes first. A router that delivers to only
+     * some of the selected consumers, or a dispatcher that does not tell its selection, is bounded by the window.
+     * Without any receiver, the event is still routed and the {@literal Flux} completes right away.
+     *
+     * @param key    The key to be matched by {@link Selector Selectors}
+     * @param event  The event to notify.
+     * @param window The time to wait for the replies
+     * @return A {@link Flux} of the replies, in the order they arrive
+     */
+    public <R> Flux<Event<R>> scatterGather(Object key, Event<?> event, Duration window) {
+        Assert.notNull(key, "Key cannot be null.");
+        Assert.notNull(event, "Event cannot be null.");
+        Assert.notNull(window, "Window cannot be null.");
+        return Flux.create(sink -> {
+            PendingGather<R> gather = new PendingGather<>(correlationIds.incrementAndGet(), sink);
+            replyConsumers.put(gather.correlationId, gather);
+            gather.timeout = ReplyTimer.TIMER.newTimeout(gather, window.toNanos(), TimeUnit.NANOSECONDS);
+            sink.onDispose(gather::cancel);
+            notify(key, event.setReplyTo(new ReplyKey(gather.correlationId, gather)));
+        });
+    }
+
+
     @Override
     public void accept(Event ev) {
         notify(ev.getKey(), ev);
     }
 
 
+    /**
+     * Hand the given reply to the consumer waiting for it, if any.
+     *
+     * @return {@literal false} if no consumer is waiting for the reply
+     */
+    private boolean reply(ReplyKey key, Event<?> ev) {
+        Consumer<Event<?>> reply = (Consumer<Event<?>>) replyConsumers.get(key.getCorrelationId());
+        if (null == reply)
+            return false;
+        // a gather takes several replies and removes itself once it has all of them.
+        if (!(reply instanceof PendingGather) && !replyConsumers.remove(key.getCorrelationId(), reply))
+            return false;
+        try {
+            reply.accept(ev);
+        } catch (Throwable t) {
+            if (null != dispatchErrorHandler)
+                dispatchErrorHandler.accept(t);
+            else
+                logger.error("Error in handling reply. - " + key + ": " + ev.getId(), t);
+        }
+        return true;
+    }
+
+
+    /**
+     * The reply consumer of a {@link #request(Object, Event, Duration) request}, which is also the task run on its
+     * timeout.
+     */
+    private class PendingRequest<R> implements Consumer<Event<R>>, Runnable {
+        private final long                                  correlationId;
+        private final Object                                key;
+        private final MonoSink<Event<R>>                    sink;
+        private volatile HashedWheelTimer.Timeout           timeout;
+
+        private PendingRequest(long correlationId, Object key, MonoSink<Event<R>> sink) {
+            this.correlationId = correlationId;
+            this.key = key;
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(Event<R> ev) {
+            HashedWheelTimer.Timeout timeout = this.timeout;
+            if (null != timeout)
+                timeout.cancel();
+            sink.success(ev);
+        }
+
+        @Override
+        public void run() {
+            if (replyConsumers.remove(correlationId, this))
+                sink.error(new TimeoutException("No reply received in time. - " + key + ": " + correlationId));
+        }
+
+        private void cancel() {
+            if (replyConsumers.remove(correlationId, this) && null != timeout)
+                timeout.cancel();
+        }
+    }
+
+    /**
+     * The reply consumer of a {@link #scatterGather(Object, Event, Duration) scatter-gather}, which is also the task
+     * run when its window closes.
+     */
+    private class PendingGather<R> implements Consumer<Event<R>>, Runnable {
+        private final long                                  correlationId;
+        private final FluxSink<Event<R>>                    sink;
+        private volatile HashedWheelTimer.Timeout           timeout;
+
+        // guarded by this. Replies are emitted outside the lock, through the serialized sink, so the sink is only
+        // completed by whoever sees the last reply taken has been emitted.
+        private int                                         expected;
+        private int                                         taken;
+        private int                                         emitted;
+        private boolean                                     expired;
+        private boolean                                     completed;
+
+        private PendingGather(long correlationId, FluxSink<Event<R>> sink) {
+            this.correlationId = correlationId;
+            this.sink = sink;
+            this.expected = -1;
+        }
+
+        /**
+         * Set the number of replies to wait for, once the dispatcher selected the registrations of the event.
+         */
+        private void expect(int replies) {
+            boolean complete;
+            synchronized (this) {
+                if (expected >= 0)
+                    return;
+                expected = replies;
+                complete = tryComplete();
+            }
+            if (complete)
+                complete();
+        }
+
+        @Override
+        public void accept(Event<R> ev) {
+            synchronized (this) {
+                if (completed || expired || taken == expected)
+                    return;
+                taken++;
+            }
+            sink.next(ev);
+            boolean complete;
+            synchronized (this) {
+                emitted++;
+                complete = tryComplete();
+            }
+            if (complete)
+                complete();
+        }
+
+        @Override
+        public void run() {
+            boolean complete;
+            synchronized (this) {
+                expired = true;
+                complete = tryComplete();
+            }
+            if (complete)
+                complete();
+        }
+
+        private void cancel() {
+            if (replyConsumers.remove(correlationId, this) && null != timeout)
+                timeout.cancel();
+        }
+
+        // every reply taken is emitted, and either all replies are in or the window closed.
+        private boolean tryComplete() {
+            if (completed || emitted != taken || (!expired && (expected < 0 || emitted < expected)))
+                return false;
+            completed = true;
+            return true;
+        }
+
+        private void complete() {
+            cancel();
+            sink.complete();
+        }
+    }
+
+    private static final class ReplyTimer {
+        private static final HashedWheelTimer               TIMER
+                = new HashedWheelTimer("EventReplyTimer", 10, TimeUnit.MILLISECONDS, 512);
+    }
+
+
+    private static void release(Event<?> ev) {
+        if (ev instanceof PooledEvent)
+            ((PooledEvent<?>) ev).release();
+    }
+
+    private static int countReceivers(List<? extends Registration<Object, ? extends Consumer<? extends Event<?>>>> registrations) {
+        int receivers = 0;
+        for (Registration<Object, ? extends Consumer<? extends Event<?>>> registration : registrations) {
+            Consumer<?> consumer = registration.getObject();
+            if (consumer instanceof SelectorConsumer)
+                consumer = ((SelectorConsumer<?>) consumer).delegate;
+            if (consumer instanceof ReplyToConsumer && !registration.isCancelled())
+                receivers++;
+        }
+        return receivers;
+    }
+
+
+    /**
+     * A registered {@link Consumer} that adds the {@link HeaderResolver} of its {@link Selector} to each event before
+     * handing it over. The headers are only resolved once the consumer, or another one of the event, reads them.
+     */
+    private static final class SelectorConsumer<V extends Event<?>> implements Consumer<V> {
+        private final Selector                              selector;
+        private final Consumer<V>                           delegate;
+
+        private SelectorConsumer(Selector selector, Consumer<V> delegate) {
+            this.selector = selector;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void accept(V ev) {
+            HeaderResolver resolver = selector.getHeaderResolver();
+            if (null != resolver) {
+                ev.getHeaders().resolveLazily(resolver, ev.getKey());
+            }
+            delegate.accept(ev);
+        }
+    }
+
+
+    /**
+     * The {@code replyTo} key of an event sent with {@link #sendAndReceive(Object, Event, Consumer) sendAndReceive},
+     * correlating replies with the consumer waiting for them. The key of a
+     * {@link #scatterGather(Object, Event, Duration) scatter-gather} also counts the receivers the event is routed to.
+     */
+    public static final class ReplyKey implements TransientKey, RouteListener {
+        private final long                                  correlationId;
+        private final PendingGather<?>                      gather;
+
+        private ReplyKey(long correlationId) {
+            this(correlationId, null);
+        }
+
+        private ReplyKey(long correlationId, PendingGather<?> gather) {
+            this.correlationId = correlationId;
+            this.gather = gather;
+        }
+
+        public long getCorrelationId() {
+            return correlationId;
+        }
+
+        @Override
+        public void onRoute(List<? extends Registration<Object, ? extends Consumer<? extends Event<?>>>> registrations) {
+            if (null != gather)
+                gather.expect(countReceivers(registrations));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof ReplyKey && correlationId == ((ReplyKey) o).correlationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(correlationId);
+        }
+
+        @Override
+        public String toString() {
+            return "ReplyKey{" +
+                    "correlationId=" + correlationId +
+                    '}';
+        }
+    }
+
+
     public static class ReplyToEvent<T> extends Event<T> {
 
         private ReplyToEvent(Headers headers, T data, Object replyTo) {
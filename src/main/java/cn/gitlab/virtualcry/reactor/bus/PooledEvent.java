@@ -0,0 +1,148 @@
+package cn.gitlab.virtualcry.reactor.bus;
+
+import cn.gitlab.virtualcry.reactor.bus.routing.ConsumerFilteringRouter;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An {@link Event} that is borrowed from a pool of the borrowing thread and returned to it once the last holder
+ * {@link #release() releases} it, so publishing reuses the same events instead of allocating new ones.
+ * <p/>
+ * A borrowed event holds one reference, which {@link EventBus#notify(Object, Event) notify} takes over: the event is
+ * returned to the pool when no consumer matches its key, or by the {@link ConsumerFilteringRouter} once every consumer
+ * it was delivered to has returned. Consumers must not keep the event, its headers or its data after they returned;
+ * they can {@link #copy()} it instead. An event that is never released, because it was handed to a reply consumer or
+ * to another {@link cn.gitlab.virtualcry.reactor.bus.routing.Router}, is simply left to the garbage collector.
+ *
+ * @param <T>
+ *     The type of the wrapped object
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public final class PooledEvent<T> extends Event<T> {
+
+    private static final ThreadLocal<Pool>          POOLS
+            = ThreadLocal.withInitial(Pool::new);
+
+    private final Pool                              pool;
+    // not private, so the field updater can access it.
+    volatile int                                    references;
+
+    private T                                       data;
+    private long                                    timestamp;
+    private PooledEvent<?>                          next;
+
+
+    private PooledEvent(Pool pool) {
+        super(null, null);
+        this.pool = pool;
+    }
+
+
+    /**
+     * Borrow an event from the pool of the current thread, holding one reference.
+     *
+     * @return The event, without data, keys or headers
+     */
+    @SuppressWarnings("unchecked")
+    static <T> PooledEvent<T> borrow() {
+        PooledEvent<T> ev = (PooledEvent<T>) POOLS.get().borrow();
+        ev.references = 1;
+        ev.timestamp = System.currentTimeMillis();
+        return ev;
+    }
+
+
+    @Override
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * Set the data of this event.
+     *
+     * @param data
+     *     The data
+     *
+     * @return {@literal this}
+     */
+    public PooledEvent<T> setData(T data) {
+        this.data = data;
+        return this;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+
+    /**
+     * Add a reference to this event, to be released by its holder once done with it.
+     *
+     * @return {@literal this}
+     */
+    public PooledEvent<T> retain() {
+        int references;
+        do {
+            references = this.references;
+            if (references <= 0)
+                throw new IllegalStateException("Event was already released. - " + this);
+        } while (!REFERENCES.compareAndSet(this, references, references + 1));
+        return this;
+    }
+
+    /**
+     * Release a reference to this event, returning it to its pool if this was the last one.
+     *
+     * @return {@literal true} if the event was returned to its pool
+     */
+    public boolean release() {
+        int references = REFERENCES.decrementAndGet(this);
+        if (references > 0)
+            return false;
+        if (references < 0)
+            throw new IllegalStateException("Event was already released. - " + this);
+        this.data = null;
+        recycle();
+        pool.recycle(this);
+        return true;
+    }
+
+
+    private static final AtomicIntegerFieldUpdater<PooledEvent> REFERENCES =
+            AtomicIntegerFieldUpdater.newUpdater(PooledEvent.class, "references");
+
+
+    /**
+     * The events of a thread. Only the owning thread borrows events; released events are pushed back by any thread
+     * onto a lock-free stack linked through the events themselves, which the owner takes over whole once its own free
+     * list runs out.
+     */
+    private static final class Pool {
+        private final AtomicReference<PooledEvent<?>>   released
+                = new AtomicReference<>();
+        private PooledEvent<?>                          free;
+
+        private PooledEvent<?> borrow() {
+            PooledEvent<?> ev = free;
+            if (null == ev)
+                ev = released.getAndSet(null);
+            if (null == ev)
+                return new PooledEvent<>(this);
+            free = ev.next;
+            ev.next = null;
+            return ev;
+        }
+
+        private void recycle(PooledEvent<?> ev) {
+            PooledEvent<?> head;
+            do {
+                head = released.get();
+                ev.next = head;
+            } while (!released.compareAndSet(head, ev));
+        }
+    }
+}
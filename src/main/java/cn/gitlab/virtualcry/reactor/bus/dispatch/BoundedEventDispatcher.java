@@ -0,0 +1,91 @@
+package cn.gitlab.virtualcry.reactor.bus.dispatch;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import cn.gitlab.virtualcry.reactor.bus.routing.Router;
+import cn.gitlab.virtualcry.reactor.bus.support.Assert;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link Dispatcher} that uses a {@link UnicastProcessor} with a bounded queue, and applies an
+ * {@link OverflowPolicy} to events published while the queue is full, so a burst of events can't grow the heap without
+ * bounds. The dispatcher thread takes events straight from the queue, so besides the one being dispatched at most
+ * {@code capacity} events are held.
+ * <p/>
+ * Like the {@link UnicastProcessor} of an {@link EventDispatcher}, it must not be published to by several threads at
+ * the same time.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class BoundedEventDispatcher extends EventDispatcher {
+
+    /**
+     * The default number of events the queue of a dispatcher holds.
+     */
+    public static final int                             DEFAULT_CAPACITY      = 8192;
+
+    /**
+     * The default time a publisher waits for room with {@link OverflowPolicy#BLOCK}.
+     */
+    public static final Duration                        DEFAULT_BLOCK_TIMEOUT = Duration.ofSeconds(1);
+
+    private final BoundedEventQueue                     queue;
+
+
+    public BoundedEventDispatcher(int capacity,
+                                  OverflowPolicy overflowPolicy,
+                                  Duration blockTimeout,
+                                  Registry<Object, Consumer<? extends Event<?>>> consumerRegistry,
+                                  Router router,
+                                  Consumer<Throwable> dispatchErrorHandler) {
+        this(capacity, overflowPolicy, blockTimeout,
+                new EventDispatcherSubscriber(consumerRegistry, router, dispatchErrorHandler));
+    }
+
+    public BoundedEventDispatcher(int capacity,
+                                  OverflowPolicy overflowPolicy,
+                                  Duration blockTimeout,
+                                  DispatcherSubscriber<Event<?>> subscribers) {
+        this(createQueue(capacity, overflowPolicy, blockTimeout), subscribers);
+    }
+
+    private BoundedEventDispatcher(BoundedEventQueue queue,
+                                   DispatcherSubscriber<Event<?>> subscribers) {
+        super(UnicastProcessor.create(queue), subscribers);
+        this.queue = queue;
+    }
+
+
+    private static BoundedEventQueue createQueue(int capacity, OverflowPolicy overflowPolicy, Duration blockTimeout) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive.");
+        Assert.notNull(overflowPolicy, "Overflow policy must not be null.");
+        Assert.isTrue(blockTimeout != null && !blockTimeout.isNegative(), "Block timeout must not be negative.");
+        return new BoundedEventQueue(capacity, overflowPolicy, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+
+    @Override
+    public long getPendingCount() {
+        // dropped events were counted as pending, but never reach the dispatcher thread.
+        return Math.max(super.getPendingCount() - queue.getDroppedCount(), 0);
+    }
+
+    @Override
+    public long getOverflowCount() {
+        return queue.getOverflowCount();
+    }
+
+    /**
+     * Get the number of events that were dropped or failed because the queue was full.
+     *
+     * @return The number of dropped events
+     */
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+}
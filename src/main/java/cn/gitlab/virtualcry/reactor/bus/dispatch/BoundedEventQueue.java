@@ -0,0 +1,198 @@
+package cn.gitlab.virtualcry.reactor.bus.dispatch;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.PooledEvent;
+import reactor.core.Exceptions;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of events that never refuses an offer, but applies an {@link OverflowPolicy} when it is full.
+ * Dropped events that are {@link PooledEvent}s are released.
+ * <p/>
+ * The queue is guarded by a lock, so that publishers can take out or replace queued events while the consumer polls.
+ * Under {@link OverflowPolicy#CONFLATE}, the queue also maps the key of every queued event to its slot, so a published
+ * event finds the one it replaces without scanning the queue.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+final class BoundedEventQueue extends AbstractQueue<Event<?>> {
+
+    private final Event<?>[]                            items;
+    private final OverflowPolicy                        overflowPolicy;
+    private final long                                  blockTimeoutNanos;
+    private final ReentrantLock                         lock;
+    private final Condition                             notFull;
+    private final AtomicLong                            overflowCount;
+    private final AtomicLong                            droppedCount;
+
+    // guarded by the lock.
+    private final Map<Object, Integer>                  slotsByKey;
+    private int                                         head;
+    private int                                         count;
+
+
+    BoundedEventQueue(int capacity, OverflowPolicy overflowPolicy, long blockTimeout, TimeUnit unit) {
+        this.items = new Event<?>[capacity];
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = unit.toNanos(blockTimeout);
+        this.lock = new ReentrantLock();
+        this.notFull = lock.newCondition();
+        this.overflowCount = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.slotsByKey = overflowPolicy == OverflowPolicy.CONFLATE ? new HashMap<>() : null;
+    }
+
+
+    @Override
+    public boolean offer(Event<?> ev) {
+        Objects.requireNonNull(ev, "Event must not be null.");
+        Event<?> dropped = null;
+        lock.lock();
+        try {
+            if (count == items.length) {
+                overflowCount.incrementAndGet();
+                switch (overflowPolicy) {
+                    case BLOCK:
+                        awaitNotFull(ev);
+                        break;
+                    case DROP_NEWEST:
+                        dropped = ev;
+                        return true;
+                    case CONFLATE:
+                        Integer slot = slotsByKey.get(ev.getKey());
+                        if (slot != null) {
+                            dropped = items[slot];
+                            items[slot] = ev;
+                            return true;
+                        }
+                        dropped = dequeue();
+                        break;
+                    case DROP_OLDEST:
+                        dropped = dequeue();
+                        break;
+                    default:
+                        dropped = ev;
+                        throw Exceptions.failWithOverflow("Dispatcher queue is full. - capacity: " + items.length);
+                }
+            }
+            int slot = (head + count) % items.length;
+            items[slot] = ev;
+            count++;
+            if (slotsByKey != null)
+                slotsByKey.put(ev.getKey(), slot);
+            return true;
+        } finally {
+            lock.unlock();
+            if (dropped != null)
+                drop(dropped);
+        }
+    }
+
+    @Override
+    public Event<?> poll() {
+        lock.lock();
+        try {
+            if (count == 0)
+                return null;
+            Event<?> ev = dequeue();
+            notFull.signal();
+            return ev;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Event<?> peek() {
+        lock.lock();
+        try {
+            return count == 0 ? null : items[head];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Event<?>> iterator() {
+        lock.lock();
+        try {
+            Event<?>[] snapshot = new Event<?>[count];
+            for (int i = 0; i < count; i++)
+                snapshot[i] = items[(head + i) % items.length];
+            return Arrays.asList(snapshot).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of events that were published while the queue was full.
+     */
+    long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Get the number of events that were dropped or failed because the queue was full.
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+
+    private void awaitNotFull(Event<?> ev) {
+        long nanos = blockTimeoutNanos;
+        try {
+            while (count == items.length) {
+                if (nanos <= 0) {
+                    drop(ev);
+                    throw Exceptions.failWithOverflow("Dispatcher queue is still full after "
+                            + TimeUnit.NANOSECONDS.toMillis(blockTimeoutNanos) + "ms. - capacity: " + items.length);
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop(ev);
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private Event<?> dequeue() {
+        Event<?> ev = items[head];
+        items[head] = null;
+        // the key maps to its latest queued event, which is only dequeued after the older ones of the same key.
+        if (slotsByKey != null)
+            slotsByKey.remove(ev.getKey(), head);
+        head = (head + 1) % items.length;
+        count--;
+        return ev;
+    }
+
+    private void drop(Event<?> ev) {
+        droppedCount.incrementAndGet();
+        if (ev instanceof PooledEvent)
+            ((PooledEvent<?>) ev).release();
+    }
+}
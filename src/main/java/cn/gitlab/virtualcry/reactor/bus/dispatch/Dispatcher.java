@@ -1,5 +1,6 @@
 package cn.gitlab.virtualcry.reactor.bus.dispatch;
 
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadAware;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscription;
 
@@ -11,7 +12,7 @@ import org.reactivestreams.Subscription;
  * @author VirtualCry
  * @since 3.2.2
  */
-public interface Dispatcher<E> {
+public interface Dispatcher<E> extends LoadAware {
 
     /**
      * Data notification sent by the {@link Publisher} in response to requests to {@link Subscription#request(long)}.
@@ -35,4 +36,26 @@ public interface Dispatcher<E> {
      * No further events will be sent even if {@link Subscription#request(long)} is invoked again.
      */
     void onCancel();
+
+
+    /**
+     * Get the number of events that were sent to this dispatcher and are waiting to be dispatched or being dispatched,
+     * which may be off while publishers and the dispatcher are running.
+     *
+     * @return The number of pending events, {@literal 0} if the dispatcher doesn't keep track of them
+     */
+    @Override
+    default long getPendingCount() {
+        return 0;
+    }
+
+
+    /**
+     * Get the number of events that were published while the queue of this dispatcher was full.
+     *
+     * @return The number of overflows, {@literal 0} if the dispatcher doesn't keep track of them
+     */
+    default long getOverflowCount() {
+        return 0;
+    }
 }
@@ -3,10 +3,12 @@ package cn.gitlab.virtualcry.reactor.bus.dispatch;
 import cn.gitlab.virtualcry.reactor.bus.Event;
 import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
 import cn.gitlab.virtualcry.reactor.bus.routing.Router;
+import lombok.AccessLevel;
 import lombok.Getter;
 import reactor.core.publisher.FluxProcessor;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -20,6 +22,8 @@ public class EventDispatcher implements Dispatcher<Event<?>> {
 
     private final FluxProcessor<Event<?>, Event<?>>     dispatcher;
     private final DispatcherSubscriber<Event<?>>        dispatcherSubscriber;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong                            pending;
 
 
     public EventDispatcher(FluxProcessor<Event<?>, Event<?>> dispatcher,
@@ -33,6 +37,7 @@ public class EventDispatcher implements Dispatcher<Event<?>> {
                            DispatcherSubscriber<Event<?>> subscribers) {
         this.dispatcher = dispatcher;
         this.dispatcherSubscriber = subscribers;
+        this.pending = new AtomicLong();
 
         // start to subscribe.
         startToSubscribe();
@@ -40,7 +45,13 @@ public class EventDispatcher implements Dispatcher<Event<?>> {
 
     private void startToSubscribe() {
         dispatcher.publishOn(Schedulers.newSingle("EventDispatcher"))
-                .doOnNext(dispatcherSubscriber::doOnNext)
+                .doOnNext(ev -> {
+                    try {
+                        dispatcherSubscriber.doOnNext(ev);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                })
                 .doOnError(dispatcherSubscriber::doOnError)
                 .doOnSubscribe(dispatcherSubscriber::doOnSubscribe)
                 .doOnComplete(dispatcherSubscriber::doOnComplete)
@@ -50,9 +61,15 @@ public class EventDispatcher implements Dispatcher<Event<?>> {
 
     @Override
     public void onNext(Event<?> ev) {
+        pending.incrementAndGet();
         dispatcher.onNext(ev);
     }
 
+    @Override
+    public long getPendingCount() {
+        return Math.max(pending.get(), 0);
+    }
+
     @Override
     public void onComplete() {
         dispatcher.onComplete();
@@ -1,6 +1,7 @@
 package cn.gitlab.virtualcry.reactor.bus.dispatch;
 
 import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
 import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
 import cn.gitlab.virtualcry.reactor.bus.routing.Router;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -9,6 +10,7 @@ import org.reactivestreams.Subscription;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -44,7 +46,11 @@ public class EventDispatcherSubscriber implements DispatcherSubscriber<Event<?>>
     public void doOnNext(Event<?> ev) {
         if (logger.isDebugEnabled())
             logger.debug("Published event. - {}: {}", ev.getKey(), ev.getId());
-        router.route(ev.getKey(), ev, consumerRegistry.select(ev.getKey()), dispatchErrorHandler);
+        Object key = ev.getKey();
+        List<Registration<Object, ? extends Consumer<? extends Event<?>>>> registrations = key instanceof Long ?
+                consumerRegistry.selectLong((Long) key) : consumerRegistry.select(key);
+        RouteListener.selected(ev, registrations);
+        router.route(key, ev, registrations, dispatchErrorHandler);
     }
 
     @Override
@@ -32,6 +32,16 @@ public class EventLoadBalanceDispatcher<E extends Event<?>> implements Dispatche
         loadBalance.get(dispatchers, ev.getKey()).onNext(ev);
     }
 
+    @Override
+    public long getPendingCount() {
+        return dispatchers.stream().mapToLong(Dispatcher::getPendingCount).sum();
+    }
+
+    @Override
+    public long getOverflowCount() {
+        return dispatchers.stream().mapToLong(Dispatcher::getOverflowCount).sum();
+    }
+
     @Override
     public void onComplete() {
         dispatchers.forEach(Dispatcher::onComplete);
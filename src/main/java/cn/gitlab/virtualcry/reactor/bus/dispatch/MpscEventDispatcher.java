@@ -0,0 +1,198 @@
+package cn.gitlab.virtualcry.reactor.bus.dispatch;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.PooledEvent;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import cn.gitlab.virtualcry.reactor.bus.routing.Router;
+import cn.gitlab.virtualcry.reactor.bus.support.Assert;
+import cn.gitlab.virtualcry.reactor.bus.support.MpscArrayQueue;
+import lombok.Getter;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link Dispatcher} that uses a {@link MpscArrayQueue} drained by a dedicated thread.
+ * <p/>
+ * Unlike the {@link reactor.core.publisher.FluxProcessor}s behind an {@link EventDispatcher}, any number of threads
+ * may call {@link #onNext(Event)} at the same time: publishing is a single compare-and-set on the queue, and a
+ * publisher only waits when the queue is full, until the dispatcher thread has made room. The dispatcher thread spins
+ * and yields for a while when the queue runs empty before it parks, and publishers only wake it up when it is parked.
+ * <p/>
+ * Errors thrown while dispatching an event are handed to {@link DispatcherSubscriber#doOnError(Throwable)} and do not
+ * stop the dispatcher.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class MpscEventDispatcher implements Dispatcher<Event<?>> {
+
+    /**
+     * The default number of events the queue of a dispatcher holds.
+     */
+    public static final int                             DEFAULT_CAPACITY = 8192;
+
+    private static final AtomicInteger                  THREAD_COUNTER   = new AtomicInteger();
+    private static final int                            SPIN_TRIES       = 100;
+    private static final int                            YIELD_TRIES      = 100;
+
+    private static final int                            RUNNING          = 0;
+    private static final int                            COMPLETED        = 1;
+    private static final int                            CANCELLED        = 2;
+
+    @Getter
+    private final MpscArrayQueue<Event<?>>              queue;
+    @Getter
+    private final DispatcherSubscriber<Event<?>>        dispatcherSubscriber;
+    private final Thread                                thread;
+    private volatile boolean                            parked;
+    private volatile boolean                            dispatching;
+    private final AtomicLong                            overflowCount;
+    private volatile int                                state;
+
+
+    public MpscEventDispatcher(int capacity,
+                               Registry<Object, Consumer<? extends Event<?>>> consumerRegistry,
+                               Router router,
+                               Consumer<Throwable> dispatchErrorHandler) {
+        this(capacity, new EventDispatcherSubscriber(consumerRegistry, router, dispatchErrorHandler));
+    }
+
+    public MpscEventDispatcher(int capacity,
+                               DispatcherSubscriber<Event<?>> subscribers) {
+        Assert.notNull(subscribers, "Dispatcher subscriber must not be null.");
+        this.queue = new MpscArrayQueue<>(capacity);
+        this.dispatcherSubscriber = subscribers;
+        this.overflowCount = new AtomicLong();
+        this.thread = new Thread(this::run, "MpscEventDispatcher-" + THREAD_COUNTER.incrementAndGet());
+
+        // start to subscribe.
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    @Override
+    public void onNext(Event<?> ev) {
+        Assert.notNull(ev, "Event must not be null.");
+        if (state != RUNNING) {
+            drop(ev);
+            return;
+        }
+        for (int tries = 0; !queue.offer(ev); tries++) {
+            // the queue is full, give the dispatcher thread time to make room.
+            if (tries == 0)
+                overflowCount.incrementAndGet();
+            wakeUp();
+            if (tries < YIELD_TRIES)
+                Thread.yield();
+            else
+                LockSupport.parkNanos(this, 1000L);
+            if (state != RUNNING) {
+                drop(ev);
+                return;
+            }
+        }
+        wakeUp();
+    }
+
+    @Override
+    public long getPendingCount() {
+        return queue.size() + (dispatching ? 1 : 0);
+    }
+
+    @Override
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    @Override
+    public void onComplete() {
+        terminate(COMPLETED);
+    }
+
+    @Override
+    public void onCancel() {
+        terminate(CANCELLED);
+    }
+
+
+    private void run() {
+        dispatcherSubscriber.doOnSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                onCancel();
+            }
+        });
+        int idle = 0;
+        while (true) {
+            Event<?> ev = queue.poll();
+            if (ev != null) {
+                idle = 0;
+                if (state == CANCELLED)
+                    drop(ev);
+                else
+                    dispatch(ev);
+                continue;
+            }
+            int state = this.state;
+            if (state == CANCELLED) {
+                dispatcherSubscriber.doOnCancel();
+                return;
+            }
+            if (state == COMPLETED && queue.isEmpty()) {
+                dispatcherSubscriber.doOnComplete();
+                return;
+            }
+            if (idle < SPIN_TRIES) {
+                idle++;
+            } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                idle++;
+                Thread.yield();
+            } else {
+                // publishers check the flag after publishing, so either they see it or we see their event.
+                parked = true;
+                if (queue.isEmpty() && this.state == RUNNING)
+                    LockSupport.park(this);
+                parked = false;
+            }
+        }
+    }
+
+    private void dispatch(Event<?> ev) {
+        dispatching = true;
+        try {
+            dispatcherSubscriber.doOnNext(ev);
+        } catch (Throwable t) {
+            dispatcherSubscriber.doOnError(t);
+        } finally {
+            dispatching = false;
+        }
+    }
+
+    private void wakeUp() {
+        if (parked)
+            LockSupport.unpark(thread);
+    }
+
+    private void terminate(int state) {
+        synchronized (this) {
+            if (this.state != RUNNING)
+                return;
+            this.state = state;
+        }
+        LockSupport.unpark(thread);
+    }
+
+    private static void drop(Event<?> ev) {
+        if (ev instanceof PooledEvent)
+            ((PooledEvent<?>) ev).release();
+    }
+}
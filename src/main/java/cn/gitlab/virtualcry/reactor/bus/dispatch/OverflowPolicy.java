@@ -0,0 +1,38 @@
+package cn.gitlab.virtualcry.reactor.bus.dispatch;
+
+/**
+ * What a bounded dispatcher does with an event published while its queue is full.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ *
+ * @see BoundedEventDispatcher
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Wait for room until the timeout elapses, and then fail the publisher like {@link #ERROR}.
+     */
+    BLOCK,
+
+    /**
+     * Drop the published event.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop the oldest queued event to make room for the published one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replace the latest queued event of the same key with the published one, keeping its place in the queue, or drop
+     * the oldest queued event like {@link #DROP_OLDEST} if none has the same key.
+     */
+    CONFLATE,
+
+    /**
+     * Fail the publisher with an overflow exception, see {@link reactor.core.Exceptions#isOverflow(Throwable)}.
+     */
+    ERROR
+}
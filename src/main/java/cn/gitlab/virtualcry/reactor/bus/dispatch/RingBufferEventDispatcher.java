@@ -0,0 +1,274 @@
+package cn.gitlab.virtualcry.reactor.bus.dispatch;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.PooledEvent;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import cn.gitlab.virtualcry.reactor.bus.routing.Router;
+import cn.gitlab.virtualcry.reactor.bus.support.Assert;
+import lombok.Getter;
+import org.reactivestreams.Subscription;
+import reactor.util.concurrent.WaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link Dispatcher} that uses a preallocated ring buffer drained by a dedicated thread, which waits
+ * for new events with a pluggable {@link WaitStrategy}.
+ * <p/>
+ * Publishers claim the next sequence of the ring, store the event into its slot and mark the slot as published with
+ * that sequence; a publisher only waits when the ring is full, until the dispatcher thread has made room. The
+ * dispatcher thread takes published events in sequence order and waits as its strategy says when there are none:
+ * <ul>
+ *     <li>{@link WaitStrategy#busySpin()} keeps spinning, for the lowest latency at the cost of a whole core.</li>
+ *     <li>{@link WaitStrategy#yielding()} spins and yields the core to other threads in between.</li>
+ *     <li>{@link WaitStrategy#parking()} spins for a while and then backs off by parking for short periods.</li>
+ *     <li>{@link WaitStrategy#liteBlocking()} blocks until a publisher signals it, for the lowest CPU usage.</li>
+ * </ul>
+ * Errors thrown while dispatching an event are handed to {@link DispatcherSubscriber#doOnError(Throwable)} and do not
+ * stop the dispatcher.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class RingBufferEventDispatcher implements Dispatcher<Event<?>> {
+
+    /**
+     * The default number of events the ring of a dispatcher holds.
+     */
+    public static final int                             DEFAULT_CAPACITY = 8192;
+
+    private static final AtomicInteger                  THREAD_COUNTER   = new AtomicInteger();
+    private static final int                            YIELD_TRIES      = 100;
+
+    private static final int                            RUNNING          = 0;
+    private static final int                            COMPLETED        = 1;
+    private static final int                            CANCELLED        = 2;
+
+    @Getter
+    private final WaitStrategy                          waitStrategy;
+    @Getter
+    private final DispatcherSubscriber<Event<?>>        dispatcherSubscriber;
+    private final Event<?>[]                            entries;
+    private final AtomicLongArray                       published;
+    private final int                                   mask;
+    private final Sequence                              claimed;
+    private final Sequence                              consumed;
+    private final Thread                                thread;
+    private final AtomicLong                            overflowCount;
+    private volatile int                                state;
+
+    // owned by the dispatcher thread.
+    private long                                        nextSequence;
+
+
+    /**
+     * Create a new dispatcher with the default wait strategy of Reactor's processors, which spins, then yields and
+     * then blocks.
+     *
+     * @see WaitStrategy#phasedOffLiteLock(long, long, TimeUnit)
+     */
+    public RingBufferEventDispatcher(int capacity,
+                                     Registry<Object, Consumer<? extends Event<?>>> consumerRegistry,
+                                     Router router,
+                                     Consumer<Throwable> dispatchErrorHandler) {
+        this(capacity, defaultWaitStrategy(), consumerRegistry, router, dispatchErrorHandler);
+    }
+
+    public RingBufferEventDispatcher(int capacity,
+                                     WaitStrategy waitStrategy,
+                                     Registry<Object, Consumer<? extends Event<?>>> consumerRegistry,
+                                     Router router,
+                                     Consumer<Throwable> dispatchErrorHandler) {
+        this(capacity, waitStrategy, new EventDispatcherSubscriber(consumerRegistry, router, dispatchErrorHandler));
+    }
+
+    public RingBufferEventDispatcher(int capacity,
+                                     WaitStrategy waitStrategy,
+                                     DispatcherSubscriber<Event<?>> subscribers) {
+        Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "Capacity must be in (0, 2^30].");
+        Assert.notNull(waitStrategy, "Wait strategy must not be null.");
+        Assert.notNull(subscribers, "Dispatcher subscriber must not be null.");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.waitStrategy = waitStrategy;
+        this.dispatcherSubscriber = subscribers;
+        this.entries = new Event<?>[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            published.set(i, -1L);
+        this.mask = size - 1;
+        this.claimed = new Sequence();
+        this.consumed = new Sequence();
+        this.overflowCount = new AtomicLong();
+        this.thread = new Thread(this::run, "RingBufferEventDispatcher-" + THREAD_COUNTER.incrementAndGet());
+
+        // start to subscribe.
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Get the default wait strategy, which spins, then yields and then blocks like the one of Reactor's processors.
+     *
+     * @return The wait strategy
+     */
+    public static WaitStrategy defaultWaitStrategy() {
+        return WaitStrategy.phasedOffLiteLock(200, 100, TimeUnit.MILLISECONDS);
+    }
+
+
+    @Override
+    public void onNext(Event<?> ev) {
+        Assert.notNull(ev, "Event must not be null.");
+        if (state != RUNNING) {
+            drop(ev);
+            return;
+        }
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - entries.length;
+        for (int tries = 0; wrapPoint > consumed.value; tries++) {
+            // the ring is full, give the dispatcher thread time to make room.
+            if (tries == 0)
+                overflowCount.incrementAndGet();
+            waitStrategy.signalAllWhenBlocking();
+            if (tries < YIELD_TRIES)
+                Thread.yield();
+            else
+                LockSupport.parkNanos(this, 1000L);
+            if (state == CANCELLED) {
+                drop(ev);
+                return;
+            }
+        }
+        int index = (int) (sequence & mask);
+        entries[index] = ev;
+        published.lazySet(index, sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    @Override
+    public long getPendingCount() {
+        long consumed = this.consumed.value;
+        return Math.max(claimed.value - consumed, 0);
+    }
+
+    @Override
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    @Override
+    public void onComplete() {
+        terminate(COMPLETED);
+    }
+
+    @Override
+    public void onCancel() {
+        terminate(CANCELLED);
+    }
+
+
+    private void run() {
+        dispatcherSubscriber.doOnSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                onCancel();
+            }
+        });
+        Runnable spinObserver = () -> {
+            if (state != RUNNING)
+                WaitStrategy.alert();
+        };
+        while (true) {
+            long available;
+            try {
+                available = waitStrategy.waitFor(nextSequence, this::availableSequence, spinObserver);
+            } catch (Throwable t) {
+                if (!WaitStrategy.isAlert(t) && !(t instanceof InterruptedException))
+                    dispatcherSubscriber.doOnError(t);
+                // nothing is left to take, or the thread is told to stop.
+                if (state == COMPLETED)
+                    dispatcherSubscriber.doOnComplete();
+                else
+                    dispatcherSubscriber.doOnCancel();
+                return;
+            }
+            for (; nextSequence <= available; nextSequence++) {
+                int index = (int) (nextSequence & mask);
+                Event<?> ev = entries[index];
+                entries[index] = null;
+                if (state == CANCELLED)
+                    drop(ev);
+                else
+                    dispatch(ev);
+                // free the slot once done, so the pending count includes the event being dispatched.
+                consumed.lazySet(nextSequence);
+            }
+        }
+    }
+
+    private long availableSequence() {
+        // the highest sequence up to which every slot was published.
+        long sequence = nextSequence;
+        long claimed = this.claimed.value;
+        while (sequence <= claimed && published.get((int) (sequence & mask)) == sequence)
+            sequence++;
+        return sequence - 1;
+    }
+
+    private void dispatch(Event<?> ev) {
+        try {
+            dispatcherSubscriber.doOnNext(ev);
+        } catch (Throwable t) {
+            dispatcherSubscriber.doOnError(t);
+        }
+    }
+
+    private void terminate(int state) {
+        synchronized (this) {
+            if (this.state != RUNNING)
+                return;
+            this.state = state;
+        }
+        waitStrategy.signalAllWhenBlocking();
+        LockSupport.unpark(thread);
+    }
+
+    private static void drop(Event<?> ev) {
+        if (ev instanceof PooledEvent)
+            ((PooledEvent<?>) ev).release();
+    }
+
+
+    /**
+     * A sequence padded onto a cache line of its own, so publishers claiming sequences and the dispatcher thread
+     * consuming them don't invalidate each other's line.
+     */
+    private static final class Sequence {
+        long p00, p01, p02, p03, p04, p05, p06;
+        // not private, so the field updater can access it.
+        volatile long                                   value = -1L;
+        long p10, p11, p12, p13, p14, p15, p16;
+
+        private long incrementAndGet() {
+            return VALUE.incrementAndGet(this);
+        }
+
+        private void lazySet(long value) {
+            VALUE.lazySet(this, value);
+        }
+    }
+
+    private static final AtomicLongFieldUpdater<Sequence> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+}
@@ -0,0 +1,39 @@
+package cn.gitlab.virtualcry.reactor.bus.dispatch;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Event#getReplyTo() replyTo} key that is told which {@link Registration}s its event was selected for, right
+ * before the event is routed to them. The selection is the one the event is delivered by, so a key waiting for the
+ * replies of the consumers learns how many to expect without selecting the notification key again.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public interface RouteListener {
+
+    /**
+     * Called once the registrations of the event were selected, before the event is routed to them.
+     *
+     * @param registrations The registrations selected for the notification key, possibly empty
+     */
+    void onRoute(List<? extends Registration<Object, ? extends Consumer<? extends Event<?>>>> registrations);
+
+
+    /**
+     * Tell the {@link Event#getReplyTo() replyTo} key of the given event, if it is a {@link RouteListener}, which
+     * registrations the event was selected for.
+     *
+     * @param ev            The event about to be routed
+     * @param registrations The registrations selected for its key
+     */
+    static void selected(Event<?> ev, List<? extends Registration<Object, ? extends Consumer<? extends Event<?>>>> registrations) {
+        Object replyTo = ev.getReplyTo();
+        if (replyTo instanceof RouteListener)
+            ((RouteListener) replyTo).onRoute(registrations);
+    }
+}
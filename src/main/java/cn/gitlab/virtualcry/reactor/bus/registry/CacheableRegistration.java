@@ -2,8 +2,11 @@ package cn.gitlab.virtualcry.reactor.bus.registry;
 
 import cn.gitlab.virtualcry.reactor.bus.selector.ObjectSelector;
 import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.util.function.Consumer;
+
 /**
  * @author VirtualCry
  * @since 3.2.2
@@ -14,23 +17,37 @@ public class CacheableRegistration<K ,V> implements Registration<K, V> {
     private final Selector<K>                           selector;
     private final V                                     object;
 
-    private final Runnable                              onCancel;
+    private final Consumer<? super
+            CacheableRegistration<K, V>>                onCancel;
     private volatile boolean                            cancelled;
     private volatile boolean                            cancelAfterUse;
 
+    /** Slot of this registration in the registry's store, {@literal -1} if it is not stored in slots. */
+    @Getter(AccessLevel.NONE)
+    private int                                         slot;
+
 
     CacheableRegistration(Selector<K> selector, V object, Runnable onCancel) {
+        this(selector, object, null != onCancel ? reg -> onCancel.run() : null);
+    }
+
+    /**
+     * @param onCancel The callback removing a registration from its registry. It is passed the registration, so a
+     *                 registry can share one callback between all of its registrations.
+     */
+    CacheableRegistration(Selector<K> selector, V object, Consumer<? super CacheableRegistration<K, V>> onCancel) {
         this.selector = selector;
         this.object = object;
         this.onCancel = onCancel;
         this.cancelled = false;
         this.cancelAfterUse = false;
+        this.slot = -1;
     }
 
 
-    private static final Selector<Void> NO_MATCH = new ObjectSelector<Void, Void>(null) {
+    private static final Selector<Object> NO_MATCH = new ObjectSelector<Object, Void>(null) {
         @Override
-        public boolean matches(Void key) {
+        public boolean matches(Object key) {
             return false;
         }
     };
@@ -52,13 +69,37 @@ public class CacheableRegistration<K ,V> implements Registration<K, V> {
     public Registration<K, V> cancel() {
         if (!cancelled) {
             if (null != onCancel) {
-                onCancel.run();
+                onCancel.accept(this);
             }
             this.cancelled = true;
         }
         return this;
     }
 
+    /**
+     * Mark this registration cancelled without running its cancel callback, for a registry that has already removed it
+     * as part of a batch.
+     *
+     * @return {@literal false} if this was already cancelled
+     */
+    boolean markCancelled() {
+        if (cancelled)
+            return false;
+        this.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Record where the registry stored this registration. Only read and written under the lock of the store.
+     */
+    void assign(int slot) {
+        this.slot = slot;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
     @Override
     public String toString() {
         return "CachableRegistration{" +
@@ -1,29 +1,49 @@
 package cn.gitlab.virtualcry.reactor.bus.registry;
 
+import cn.gitlab.virtualcry.reactor.bus.selector.LongSelector;
 import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
-import com.github.benmanes.caffeine.cache.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.checkerframework.checker.nullness.qual.NonNull;
-import org.checkerframework.checker.nullness.qual.Nullable;
+import reactor.util.function.Tuple2;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
- * Implementation of {@link Registry} that uses {@link com.github.benmanes.caffeine.cache.Cache}.
+ * Implementation of {@link Registry} that uses {@link com.github.benmanes.caffeine.cache.Cache}. Registrations are
+ * kept in a compact slot store, so a cancelled registration frees its slot in constant time. When the L2 cache is
+ * used, the selections are cached per key, so {@link #respondsToKey(Object)} and {@link #select(Object)} answer
+ * repeated keys without scanning the registrations. When misses are cached, the keys that matched nothing are
+ * remembered as well, until a {@link Selector} matching them is registered.
+ * <p/>
+ * {@link LongSelector}s are also indexed by value in a table of primitive {@code long}s, which serves
+ * {@link #selectLong(long)} without boxing the key or going through the L2 cache, as long as no other registered
+ * {@link Selector} could match a {@link Long} key.
  *
  * @author VirtualCry
  * @since 3.2.2
  */
 public class CachingRegistry<K, V> implements Registry<K, V> {
 
-    private final Cache<String,
-            Registration<K, ? extends V>>               cacheL1;
+    private final RegistrationSlots<K, V>               slots;
+    private final Consumer<CacheableRegistration<K,
+            ? extends V>>                               canceller;
     private final Cache<Object,
             List<Registration<K, ? extends V>>>         cacheL2;
+    private final NegativeKeyCache                      misses;
+    private final LongSelectorIndex<K, V>               longs;
+    // registrations that are not in the long index, but whose selectors might match a Long key.
+    private final AtomicInteger                         longKeyMatchers;
+
+    private final AtomicLong                            epoch;
 
     private final boolean                               useL2Cache;
+    private final boolean                               cacheMisses;
     private final Consumer<K>                           onNotFound;
 
     private final Consumer<Registration<K,
@@ -33,17 +53,22 @@ public class CachingRegistry<K, V> implements Registry<K, V> {
 
 
     CachingRegistry(boolean useL2Cache,
+                    boolean cacheMisses,
                     Consumer<K> onNotFound,
                     Consumer<Registration<K, ? extends V>> onRegister,
                     Consumer<Registration<K, ? extends V>> onUnregister) {
-        this.cacheL1 = Caffeine.newBuilder()
-                .writer(new L1RegistrationCacheWriter())
-                .build();
+        this.slots = new RegistrationSlots<>();
+        this.canceller = this::remove;
         this.cacheL2 = Caffeine.newBuilder()
                 .maximumSize(1000)
                 .softValues()
                 .build();
+        this.misses = new NegativeKeyCache(NegativeKeyCache.DEFAULT_MAXIMUM_SIZE);
+        this.longs = new LongSelectorIndex<>();
+        this.longKeyMatchers = new AtomicInteger();
+        this.epoch = new AtomicLong();
         this.useL2Cache = useL2Cache;
+        this.cacheMisses = cacheMisses;
         this.onNotFound = onNotFound;
         this.onRegister = onRegister;
         this.onUnregister = onUnregister;
@@ -52,68 +77,219 @@ public class CachingRegistry<K, V> implements Registry<K, V> {
 
     @Override
     public Registration<K, V> register(Selector<K> sel, V obj) {
-        String key = UUID.randomUUID().toString();
-        Registration<K, V> registration = new CacheableRegistration<>(sel, obj, () -> cacheL1.invalidate(key));
-        cacheL1.put(key, registration);
+        CacheableRegistration<K, V> registration = new CacheableRegistration<>(sel, obj, canceller);
+        slots.add(registration);
+        addToLongIndex(registration);
+        invalidateL2(sel);
+        if (cacheMisses)
+            misses.invalidate(sel);
+        if (onRegister != null)
+            onRegister.accept(registration);
         return registration;
     }
 
+    @Override
+    public List<Registration<K, V>> registerAll(Collection<? extends Tuple2<? extends Selector<K>, ? extends V>> registrations) {
+        List<Registration<K, V>> regs = new ArrayList<>(registrations.size());
+        List<Selector<K>> sels = new ArrayList<>(registrations.size());
+        for (Tuple2<? extends Selector<K>, ? extends V> tuple : registrations) {
+            CacheableRegistration<K, V> registration = new CacheableRegistration<>(tuple.getT1(), tuple.getT2(), canceller);
+            slots.add(registration);
+            addToLongIndex(registration);
+            regs.add(registration);
+            sels.add(tuple.getT1());
+        }
+        invalidateL2(sels);
+        if (cacheMisses)
+            misses.invalidate(sels);
+        if (onRegister != null)
+            regs.forEach(onRegister);
+        return regs;
+    }
+
+    @Override
+    public void cancelAll(Collection<? extends Registration<K, ? extends V>> registrations) {
+        List<CacheableRegistration<K, ? extends V>> removed = new ArrayList<>(registrations.size());
+        for (Registration<K, ? extends V> registration : registrations) {
+            if (registration instanceof CacheableRegistration
+                    && slots.remove((CacheableRegistration<K, ? extends V>) registration)) {
+                removed.add((CacheableRegistration<K, ? extends V>) registration);
+            } else {
+                // not registered here, or already cancelled.
+                registration.cancel();
+            }
+        }
+        List<Selector<K>> sels = removed.stream()
+                .map(CacheableRegistration::getSelector)
+                .collect(Collectors.toList());
+        removeFromLongIndex(removed);
+        removed.forEach(CacheableRegistration::markCancelled);
+        invalidateL2(sels);
+        if (onUnregister != null)
+            removed.forEach(onUnregister);
+    }
+
     @Override
     public boolean unregister(K key) {
-        final AtomicBoolean modified = new AtomicBoolean(false);
-        cacheL1.asMap().entrySet().stream()
-                .filter(entry -> entry.getValue().getSelector().matches(key))
-                .forEach(entry -> {
-                    cacheL1.invalidate(entry.getKey());
-                    modified.compareAndSet(false, true);
-                });
-        return modified.get();
+        List<Registration<K, ? extends V>> selectedRegs = doSelect(key);
+        cancelAll(selectedRegs);
+        return !selectedRegs.isEmpty();
     }
 
     @Override
     public List<Registration<K, ? extends V>> select(K key) {
-        List<Registration<K, ? extends V>> selectedRegs;
-        if (useL2Cache && null != (selectedRegs = cacheL2.getIfPresent(key)))
-            return selectedRegs;
+        List<Registration<K, ? extends V>> selectedRegs = doSelect(key);
 
-        selectedRegs = cacheL1.asMap().values().stream()
-                .filter(registration -> registration.getSelector().matches(key))
-                .collect(Collectors.toList());
+        if (selectedRegs.isEmpty() && onNotFound != null)
+            onNotFound.accept(key);
 
-        if (useL2Cache && !selectedRegs.isEmpty())
-            cacheL2.put(key, selectedRegs);
+        return selectedRegs;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Registration<K, ? extends V>> selectLong(long key) {
+        if (longKeyMatchers.get() > 0)
+            return select((K) Long.valueOf(key));
+        List<Registration<K, ? extends V>> selectedRegs = longs.selectLong(key);
 
         if (selectedRegs.isEmpty() && onNotFound != null)
-            onNotFound.accept(key);
+            onNotFound.accept((K) Long.valueOf(key));
 
         return selectedRegs;
     }
 
+    @Override
+    public boolean respondsToKey(K key) {
+        return !doSelect(key).isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean respondsToLongKey(long key) {
+        if (longKeyMatchers.get() > 0)
+            return respondsToKey((K) Long.valueOf(key));
+        return !longs.selectLong(key).isEmpty();
+    }
+
+    @Override
+    public boolean isKnownMiss(K key) {
+        return cacheMisses && misses.contains(key);
+    }
+
     @Override
     public void clear() {
-        cacheL1.invalidateAll();
+        List<CacheableRegistration<K, ? extends V>> removed = new ArrayList<>();
+        slots.forEach(removed::add);
+        slots.clear();
+        removeFromLongIndex(removed);
+        removed.forEach(CacheableRegistration::markCancelled);
+        epoch.incrementAndGet();
+        cacheL2.invalidateAll();
+        if (onUnregister != null)
+            removed.forEach(onUnregister);
     }
 
     @Override @NonNull
     public Iterator<Registration<K, ? extends V>> iterator() {
-        return cacheL1.asMap().values().iterator();
+        Iterator<CacheableRegistration<K, ? extends V>> iterator = slots.iterator();
+        return new Iterator<Registration<K, ? extends V>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Registration<K, ? extends V> next() {
+                return iterator.next();
+            }
+        };
     }
 
 
-    private class L1RegistrationCacheWriter implements
-            CacheWriter<String, Registration<K, ? extends V>> {
+    private List<Registration<K, ? extends V>> doSelect(K key) {
+        List<Registration<K, ? extends V>> selectedRegs;
+        if (useL2Cache && null != (selectedRegs = cacheL2.getIfPresent(key)))
+            return selectedRegs;
+        if (cacheMisses && misses.contains(key))
+            return Collections.emptyList();
+
+        long startEpoch = epoch.get();
+        long startMissEpoch = misses.epoch();
+        selectedRegs = null;
+        AtomicReferenceArray<CacheableRegistration<K, ? extends V>> regs = slots.slots();
+        for (int i = 0; i < regs.length(); i++) {
+            CacheableRegistration<K, ? extends V> registration = regs.get(i);
+            if (registration != null && registration.getSelector().matches(key)) {
+                if (selectedRegs == null)
+                    selectedRegs = new ArrayList<>();
+                selectedRegs.add(registration);
+            }
+        }
 
-        @Override
-        public void write(@NonNull String key,
-                          @NonNull Registration<K, ? extends V> registration) {
-            CachingRegistry.this.onRegister.accept(registration);
+        if (selectedRegs == null) {
+            if (cacheMisses)
+                misses.add(key, startMissEpoch);
+            return Collections.emptyList();
+        }
+        if (useL2Cache && epoch.get() == startEpoch) {
+            cacheL2.put(key, selectedRegs);
+            // a registration changed while caching, the list may already be stale.
+            if (epoch.get() != startEpoch)
+                cacheL2.asMap().remove(key, selectedRegs);
         }
 
-        @Override
-        public void delete(@NonNull String key,
-                           @Nullable Registration<K, ? extends V> registration,
-                           @NonNull RemovalCause cause) {
-            CachingRegistry.this.onUnregister.accept(registration);
+        return selectedRegs;
+    }
+
+    private void remove(CacheableRegistration<K, ? extends V> registration) {
+        if (!slots.remove(registration))
+            return;
+        removeFromLongIndex(registration);
+        invalidateL2(registration.getSelector());
+        if (onUnregister != null)
+            onUnregister.accept(registration);
+    }
+
+    private void addToLongIndex(Registration<K, ? extends V> registration) {
+        if (longs.accepts(registration.getSelector()))
+            longs.add(registration);
+        else if (LongSelectorIndex.mayMatchLongKeys(registration.getSelector()))
+            longKeyMatchers.incrementAndGet();
+    }
+
+    private void removeFromLongIndex(Registration<K, ? extends V> registration) {
+        removeFromLongIndex(Collections.singletonList(registration));
+    }
+
+    private void removeFromLongIndex(Collection<? extends Registration<K, ? extends V>> registrations) {
+        List<Registration<K, ? extends V>> longRegs = new ArrayList<>();
+        for (Registration<K, ? extends V> registration : registrations) {
+            if (longs.accepts(registration.getSelector()))
+                longRegs.add(registration);
+            else if (LongSelectorIndex.mayMatchLongKeys(registration.getSelector()))
+                longKeyMatchers.decrementAndGet();
         }
+        if (!longRegs.isEmpty())
+            longs.removeAll(longRegs);
+    }
+
+    private void invalidateL2(Selector<K> sel) {
+        invalidateL2(Collections.singletonList(sel));
+    }
+
+    /**
+     * Advance the epoch and evict the cached keys matched by any of the given {@link Selector}s, so that no
+     * {@link #select(Object)} running concurrently can cache a list computed before the change. A large batch evicts
+     * all keys instead.
+     */
+    private void invalidateL2(Collection<? extends Selector<K>> sels) {
+        epoch.incrementAndGet();
+        if (!useL2Cache || sels.isEmpty())
+            return;
+        if (sels.size() > NegativeKeyCache.MAX_SELECTORS_TO_MATCH)
+            cacheL2.invalidateAll();
+        else
+            cacheL2.asMap().keySet().removeIf(key -> sels.stream().anyMatch(sel -> NegativeKeyCache.matchesQuietly(sel, key)));
     }
 }
@@ -0,0 +1,78 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.ClassSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SelectorIndex} that remembers, per class, which {@link ClassSelector}s match it. The memo is a map owned by the
+ * structure that is dropped whenever a {@link ClassSelector} is registered or cancelled, so the type hierarchy is only
+ * checked for the first key of each class after a change, and dropping the index drops the memo with it.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class ClassSelectorIndex<K, V> extends RebuildingSelectorIndex<K, V, ClassSelectorIndex.Memo<K, V>> {
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return sel.getClass() == ClassSelector.class;
+    }
+
+    @Override
+    protected Memo<K, V> build(List<Registration<K, ? extends V>> registrations) {
+        return new Memo<>(registrations);
+    }
+
+    @Override
+    protected List<Registration<K, ? extends V>> select(K key, Memo<K, V> memo) {
+        if (memo.registrations.isEmpty() || null == key)
+            return Collections.emptyList();
+        return key instanceof Class ? memo.byClassKey((Class<?>) key) : memo.byKeyClass(key.getClass());
+    }
+
+
+    static final class Memo<K, V> {
+        private final List<Registration<K, ? extends V>>                    registrations;
+        private final Map<Class<?>, List<Registration<K, ? extends V>>>     byKeyClass;
+        private final Map<Class<?>, List<Registration<K, ? extends V>>>     byClassKey;
+
+        private Memo(List<Registration<K, ? extends V>> registrations) {
+            this.registrations = registrations;
+            this.byKeyClass = new ConcurrentHashMap<>();
+            this.byClassKey = new ConcurrentHashMap<>();
+        }
+
+        private List<Registration<K, ? extends V>> byKeyClass(Class<?> type) {
+            // look up first, Java 8 computeIfAbsent locks even when the class is present.
+            List<Registration<K, ? extends V>> selectedRegs = byKeyClass.get(type);
+            return selectedRegs != null ? selectedRegs : byKeyClass.computeIfAbsent(type, t -> matching(t, t));
+        }
+
+        private List<Registration<K, ? extends V>> byClassKey(Class<?> type) {
+            List<Registration<K, ? extends V>> selectedRegs = byClassKey.get(type);
+            return selectedRegs != null ? selectedRegs : byClassKey.computeIfAbsent(type, t -> matching(t, Class.class));
+        }
+
+        /**
+         * The registrations whose type is a super type of either {@code type} or {@code keyClass}, in registration
+         * order, as {@link ClassSelector#matches} would select them.
+         */
+        private List<Registration<K, ? extends V>> matching(Class<?> type, Class<?> keyClass) {
+            List<Registration<K, ? extends V>> selectedRegs = new ArrayList<>();
+            for (Registration<K, ? extends V> registration : registrations) {
+                Class<?> selectorType = (Class<?>) registration.getSelector().getObject();
+                if (selectorType.isAssignableFrom(type) || selectorType.isAssignableFrom(keyClass))
+                    selectedRegs.add(registration);
+            }
+            return selectedRegs.isEmpty()
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(selectedRegs);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.ClassSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.LongSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.ObjectSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.RegexSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.selector.SetMembershipSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.TopicSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriPathSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriSelector;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import reactor.util.function.Tuple2;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link Registry} that serves {@link Registration}s from indexes over the {@link Selector}s they
+ * were registered with, instead of matching every selector against every key. Each selector is served by the first
+ * index that accepts it:
+ * <ul>
+ * <li>{@link LongSelector}s are looked up by value in a table of primitive {@code long}s;</li>
+ * <li>plain {@link ObjectSelector}s (including anonymous selectors) and every member of a
+ * {@link SetMembershipSelector} are looked up by hash;</li>
+ * <li>{@link UriPathSelector}s are matched in a single walk of a tree of their templates;</li>
+ * <li>{@link UriSelector}s are looked up by scheme, host, port and path, following only the exact component of the key
+ * and the wildcard at each step;</li>
+ * <li>{@link TopicSelector}s are matched in a single walk of a trie over the words of their patterns;</li>
+ * <li>{@link RegexSelector}s are grouped by the literal prefix of their pattern, and only the patterns whose prefix
+ * the key starts with are run;</li>
+ * <li>{@link ClassSelector}s are remembered per class of the key, so the type hierarchy is only checked for the first
+ * key of each class;</li>
+ * <li>any other {@link Selector} is matched by a linear scan.</li>
+ * </ul>
+ * The results of all indexes are merged into the list returned by {@link #select(Object)}. When misses are cached,
+ * keys that matched nothing are remembered until a {@link Selector} matching them is registered, so repeated misses
+ * skip the indexes.
+ * {@link #selectLong(long)} serves numeric keys from the {@link LongSelector} table alone, without boxing, as long as no
+ * other registered {@link Selector} could match a {@link Long} key.
+ * <p>
+ * The indexes keep immutable snapshots that are swapped on every register or cancel, so {@link #select(Object)} reads
+ * them without locking and without allocating iterators. This trades write cost for read cost and suits registries
+ * that change rarely but are selected from all the time; {@link #registerAll(Collection)} and
+ * {@link #cancelAll(Collection)} apply a whole batch with a single swap per index.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class IndexedRegistry<K, V> implements Registry<K, V> {
+
+    private final Set<Registration<K, ? extends V>>     registrations;
+    private final List<SelectorIndex<K, V>>             indexes;
+    private final LongSelectorIndex<K, V>               longs;
+    // registrations outside of the long index whose selectors might match a Long key.
+    private final AtomicInteger                         longKeyMatchers;
+    private final NegativeKeyCache                      misses;
+    private final boolean                               cacheMisses;
+    private final Consumer<CacheableRegistration<K,
+            ? extends V>>                               canceller;
+
+    private final Consumer<K>                           onNotFound;
+    private final Consumer<Registration<K,
+            ? extends V>>                               onRegister;
+    private final Consumer<Registration<K,
+            ? extends V>>                               onUnregister;
+
+
+    IndexedRegistry(boolean cacheMisses,
+                    Consumer<K> onNotFound,
+                    Consumer<Registration<K, ? extends V>> onRegister,
+                    Consumer<Registration<K, ? extends V>> onUnregister) {
+        this.registrations = ConcurrentHashMap.newKeySet();
+        this.longs = new LongSelectorIndex<>();
+        this.longKeyMatchers = new AtomicInteger();
+        this.indexes = Arrays.asList(
+                longs,
+                new ObjectSelectorIndex<>(),
+                new UriPathSelectorIndex<>(),
+                new UriSelectorIndex<>(),
+                new TopicSelectorIndex<>(),
+                new RegexSelectorIndex<>(),
+                new ClassSelectorIndex<>(),
+                new ScanningSelectorIndex<>()
+        );
+        this.misses = new NegativeKeyCache(NegativeKeyCache.DEFAULT_MAXIMUM_SIZE);
+        this.cacheMisses = cacheMisses;
+        this.canceller = this::remove;
+        this.onNotFound = onNotFound;
+        this.onRegister = onRegister;
+        this.onUnregister = onUnregister;
+    }
+
+
+    @Override
+    public Registration<K, V> register(Selector<K> sel, V obj) {
+        Registration<K, V> registration = new CacheableRegistration<>(sel, obj, canceller);
+        registrations.add(registration);
+        indexOf(sel).add(registration);
+        if (LongSelectorIndex.mayMatchLongKeys(sel))
+            longKeyMatchers.incrementAndGet();
+        if (cacheMisses)
+            misses.invalidate(sel);
+        if (onRegister != null)
+            onRegister.accept(registration);
+        return registration;
+    }
+
+    @Override
+    public List<Registration<K, V>> registerAll(Collection<? extends Tuple2<? extends Selector<K>, ? extends V>> registrations) {
+        List<Registration<K, V>> regs = new ArrayList<>(registrations.size());
+        Map<SelectorIndex<K, V>, List<Registration<K, ? extends V>>> regsByIndex = new IdentityHashMap<>();
+        List<Selector<K>> sels = new ArrayList<>(registrations.size());
+        for (Tuple2<? extends Selector<K>, ? extends V> tuple : registrations) {
+            Registration<K, V> registration = new CacheableRegistration<>(tuple.getT1(), tuple.getT2(), canceller);
+            regs.add(registration);
+            regsByIndex.computeIfAbsent(indexOf(tuple.getT1()), i -> new ArrayList<>()).add(registration);
+            sels.add(tuple.getT1());
+            if (LongSelectorIndex.mayMatchLongKeys(tuple.getT1()))
+                longKeyMatchers.incrementAndGet();
+        }
+        this.registrations.addAll(regs);
+        regsByIndex.forEach(SelectorIndex::addAll);
+        if (cacheMisses)
+            misses.invalidate(sels);
+        if (onRegister != null)
+            regs.forEach(onRegister);
+        return regs;
+    }
+
+    @Override
+    public void cancelAll(Collection<? extends Registration<K, ? extends V>> registrations) {
+        List<Registration<K, ? extends V>> removed = new ArrayList<>(registrations.size());
+        Map<SelectorIndex<K, V>, List<Registration<K, ? extends V>>> regsByIndex = new IdentityHashMap<>();
+        for (Registration<K, ? extends V> registration : registrations) {
+            if (!(registration instanceof CacheableRegistration) || !this.registrations.remove(registration)) {
+                // not one of ours, or already cancelled.
+                registration.cancel();
+                continue;
+            }
+            removed.add(registration);
+            regsByIndex.computeIfAbsent(indexOf(registration.getSelector()), i -> new ArrayList<>()).add(registration);
+            if (LongSelectorIndex.mayMatchLongKeys(registration.getSelector()))
+                longKeyMatchers.decrementAndGet();
+        }
+        regsByIndex.forEach(SelectorIndex::removeAll);
+        removed.forEach(registration -> ((CacheableRegistration<K, ? extends V>) registration).markCancelled());
+        if (onUnregister != null)
+            removed.forEach(onUnregister);
+    }
+
+    @Override
+    public boolean unregister(K key) {
+        List<Registration<K, ? extends V>> selectedRegs = doSelect(key);
+        cancelAll(selectedRegs);
+        return !selectedRegs.isEmpty();
+    }
+
+    @Override
+    public List<Registration<K, ? extends V>> select(K key) {
+        List<Registration<K, ? extends V>> selectedRegs = doSelect(key);
+
+        if (selectedRegs.isEmpty() && onNotFound != null)
+            onNotFound.accept(key);
+
+        return selectedRegs;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Registration<K, ? extends V>> selectLong(long key) {
+        if (longKeyMatchers.get() > 0)
+            return select((K) Long.valueOf(key));
+        List<Registration<K, ? extends V>> selectedRegs = longs.selectLong(key);
+
+        if (selectedRegs.isEmpty() && onNotFound != null)
+            onNotFound.accept((K) Long.valueOf(key));
+
+        return selectedRegs;
+    }
+
+    @Override
+    public boolean respondsToKey(K key) {
+        return !doSelect(key).isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean respondsToLongKey(long key) {
+        if (longKeyMatchers.get() > 0)
+            return respondsToKey((K) Long.valueOf(key));
+        return !longs.selectLong(key).isEmpty();
+    }
+
+    @Override
+    public boolean isKnownMiss(K key) {
+        return cacheMisses && misses.contains(key);
+    }
+
+    @Override
+    public void clear() {
+        cancelAll(new ArrayList<>(registrations));
+    }
+
+    @Override @NonNull
+    public Iterator<Registration<K, ? extends V>> iterator() {
+        return Collections.unmodifiableSet(registrations).iterator();
+    }
+
+
+    private List<Registration<K, ? extends V>> doSelect(K key) {
+        if (cacheMisses && misses.contains(key))
+            return Collections.emptyList();
+        long startEpoch = misses.epoch();
+        List<Registration<K, ? extends V>> selectedRegs = Collections.emptyList();
+        boolean merged = false;
+        for (int i = 0; i < indexes.size(); i++) {
+            List<Registration<K, ? extends V>> regs = indexes.get(i).select(key);
+            if (regs.isEmpty())
+                continue;
+            if (selectedRegs.isEmpty()) {
+                selectedRegs = regs;
+            } else {
+                if (!merged) {
+                    selectedRegs = new ArrayList<>(selectedRegs);
+                    merged = true;
+                }
+                selectedRegs.addAll(regs);
+            }
+        }
+        if (selectedRegs.isEmpty() && cacheMisses)
+            misses.add(key, startEpoch);
+        return selectedRegs;
+    }
+
+    private SelectorIndex<K, V> indexOf(Selector<K> sel) {
+        for (SelectorIndex<K, V> index : indexes) {
+            if (index.accepts(sel))
+                return index;
+        }
+        throw new IllegalStateException("No index accepts selector " + sel);
+    }
+
+    private void remove(Registration<K, ? extends V> registration) {
+        if (!registrations.remove(registration))
+            return;
+        indexOf(registration.getSelector()).remove(registration);
+        if (LongSelectorIndex.mayMatchLongKeys(registration.getSelector()))
+            longKeyMatchers.decrementAndGet();
+        if (onUnregister != null)
+            onUnregister.accept(registration);
+    }
+}
@@ -0,0 +1,101 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.*;
+
+import java.util.*;
+
+/**
+ * {@link SelectorIndex} that looks {@link LongSelector}s up by value in an open-addressing table of primitive
+ * {@code long}s, so that {@link #selectLong(long)} neither boxes the key nor goes through {@link Object#equals(Object)}.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class LongSelectorIndex<K, V> extends RebuildingSelectorIndex<K, V, LongSelectorIndex.Table<K, V>> {
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return sel.getClass() == LongSelector.class;
+    }
+
+    @Override
+    protected Table<K, V> build(List<Registration<K, ? extends V>> registrations) {
+        return new Table<>(registrations);
+    }
+
+    @Override
+    protected List<Registration<K, ? extends V>> select(K key, Table<K, V> table) {
+        return key instanceof Long ? table.get((Long) key) : Collections.emptyList();
+    }
+
+    /**
+     * Select the {@link Registration}s of the {@link LongSelector}s of the given value.
+     *
+     * @param key The key for the Selectors to match
+     * @return The matching registrations, never {@code null}
+     */
+    List<Registration<K, ? extends V>> selectLong(long key) {
+        return structure().get(key);
+    }
+
+
+    /**
+     * Whether the given {@link Selector}, if it is not served by this index, might match a {@link Long} key. URI and topic selectors only match strings and URIs; plain {@link ObjectSelector}s and
+     * {@link SetMembershipSelector}s only match the objects they hold.
+     */
+    static boolean mayMatchLongKeys(Selector<?> sel) {
+        if (sel.getClass() == LongSelector.class
+                || sel.getClass() == UriPathSelector.class
+                || sel.getClass() == UriSelector.class
+                || sel.getClass() == TopicSelector.class)
+            return false;
+        if (sel.getClass() == ObjectSelector.class)
+            return sel.getObject() instanceof Long;
+        if (sel.getClass() == SetMembershipSelector.class)
+            return ((Set<?>) sel.getObject()).stream().anyMatch(member -> member instanceof Long);
+        return true;
+    }
+
+
+    static final class Table<K, V> {
+        private final long[]                            keys;
+        private final List<Registration<K, ? extends V>>[]
+                                                        values;
+        private final int                               mask;
+
+        private Table(List<Registration<K, ? extends V>> registrations) {
+            Map<Long, List<Registration<K, ? extends V>>> regsByValue = new HashMap<>();
+            for (Registration<K, ? extends V> registration : registrations) {
+                long value = ((LongSelector) registration.getSelector()).getValue();
+                regsByValue.computeIfAbsent(value, v -> new ArrayList<>()).add(registration);
+            }
+            // a load factor of at most one half keeps probe sequences short.
+            int capacity = Integer.highestOneBit(Math.max(regsByValue.size(), 1) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.values = Snapshots.newArray(List.class, capacity);
+            this.mask = capacity - 1;
+            regsByValue.forEach((value, regs) -> {
+                int i = hash(value) & mask;
+                while (values[i] != null)
+                    i = (i + 1) & mask;
+                keys[i] = value;
+                values[i] = Collections.unmodifiableList(regs);
+            });
+        }
+
+        private List<Registration<K, ? extends V>> get(long key) {
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                List<Registration<K, ? extends V>> regs = values[i];
+                if (regs == null)
+                    return Collections.emptyList();
+                if (keys[i] == key)
+                    return regs;
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.LongSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.ObjectSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.selector.SetMembershipSelector;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded set of keys known to match no {@link Registration}. Registering a {@link Selector} evicts the keys it
+ * matches, looked up by hash for plain {@link ObjectSelector}s, {@link LongSelector}s and
+ * {@link SetMembershipSelector}s. Cancelling a
+ * {@link Registration} can only turn matches into misses, so it leaves the set alone. A key is only added if no
+ * {@link Selector} was registered while the lookup that missed it was running, and a {@link TransientKey} is never
+ * added.
+ * <p/>
+ * The set can't tell when a {@link Selector} whose matches depend on mutable state, such as a predicate or a mutable
+ * set, starts matching a remembered key, so registries only remember misses when told to.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class NegativeKeyCache {
+
+    static final int                                    DEFAULT_MAXIMUM_SIZE = 10_000;
+    /** Beyond this many selectors to match, the whole set is dropped instead of matched key by key. */
+    static final int                                    MAX_SELECTORS_TO_MATCH = 16;
+
+    private final Cache<Object, Boolean>                misses;
+    private final AtomicLong                            epoch;
+
+
+    NegativeKeyCache(int maximumSize) {
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        this.epoch = new AtomicLong();
+    }
+
+
+    /**
+     * Get the current epoch, to be passed to {@link #add(Object, long)} once a lookup started now found no match.
+     */
+    long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Whether the given key is known to match no {@link Registration}.
+     */
+    boolean contains(Object key) {
+        return key != null && misses.getIfPresent(key) != null;
+    }
+
+    /**
+     * Remember that the given key matched no {@link Registration} in a lookup started at {@code startEpoch}.
+     */
+    void add(Object key, long startEpoch) {
+        if (key == null || key instanceof TransientKey || epoch.get() != startEpoch)
+            return;
+        misses.put(key, Boolean.TRUE);
+        // a selector was registered while caching, it may match the key.
+        if (epoch.get() != startEpoch)
+            misses.invalidate(key);
+    }
+
+    /**
+     * Forget the keys the given newly registered {@link Selector} matches.
+     */
+    <K> void invalidate(Selector<K> sel) {
+        invalidate(Collections.singletonList(sel));
+    }
+
+    /**
+     * Forget the keys any of the given newly registered {@link Selector}s match, in a single pass over the set. A large
+     * batch of selectors that can't be looked up by hash forgets all keys.
+     */
+    <K> void invalidate(Collection<? extends Selector<K>> sels) {
+        epoch.incrementAndGet();
+        List<Selector<K>> matching = new ArrayList<>();
+        for (Selector<K> sel : sels) {
+            if ((sel.getClass() == ObjectSelector.class || sel.getClass() == LongSelector.class) && sel.getObject() != null)
+                misses.invalidate(sel.getObject());
+            else if (sel.getClass() == SetMembershipSelector.class)
+                misses.invalidateAll((Set<?>) sel.getObject());
+            else
+                matching.add(sel);
+        }
+        if (matching.size() > MAX_SELECTORS_TO_MATCH)
+            misses.invalidateAll();
+        else if (!matching.isEmpty())
+            misses.asMap().keySet().removeIf(key -> matching.stream().anyMatch(sel -> matchesQuietly(sel, key)));
+    }
+
+    /**
+     * Forget all keys.
+     */
+    void invalidateAll() {
+        epoch.incrementAndGet();
+        misses.invalidateAll();
+    }
+
+
+    @SuppressWarnings("unchecked")
+    static <K> boolean matchesQuietly(Selector<K> sel, Object key) {
+        try {
+            return sel.matches((K) key);
+        } catch (RuntimeException e) {
+            // a key the selector can't evaluate is evicted to stay on the safe side.
+            return true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.ObjectSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.selector.SetMembershipSelector;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link SelectorIndex} that hashes plain {@link ObjectSelector}s by their object and {@link SetMembershipSelector}s
+ * by each of their members. Each bucket is an immutable snapshot replaced on every change.
+ * <p>
+ * The members of a {@link SetMembershipSelector} are indexed when it is added, later changes to the backing set are
+ * not observed.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class ObjectSelectorIndex<K, V> implements SelectorIndex<K, V> {
+
+    private final ConcurrentMap<Object,
+            List<Registration<K, ? extends V>>>         index;
+    private final ConcurrentMap<Registration<K,
+            ? extends V>, Collection<?>>                memberships;
+
+
+    ObjectSelectorIndex() {
+        this.index = new ConcurrentHashMap<>();
+        this.memberships = new ConcurrentHashMap<>();
+    }
+
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return (sel.getClass() == ObjectSelector.class && sel.getObject() != null)
+                || sel.getClass() == SetMembershipSelector.class;
+    }
+
+    @Override
+    public void add(Registration<K, ? extends V> registration) {
+        Selector<K> sel = registration.getSelector();
+        if (sel.getClass() == SetMembershipSelector.class) {
+            List<Object> members = new ArrayList<>();
+            for (Object member : (Set<?>) sel.getObject()) {
+                if (member != null)
+                    members.add(member);
+            }
+            memberships.put(registration, members);
+            members.forEach(member -> index.compute(member, (k, regs) -> Snapshots.with(regs, registration)));
+        } else {
+            index.compute(sel.getObject(), (k, regs) -> Snapshots.with(regs, registration));
+        }
+    }
+
+    @Override
+    public void remove(Registration<K, ? extends V> registration) {
+        Collection<?> members = memberships.remove(registration);
+        if (members == null)
+            members = Collections.singletonList(registration.getSelector().getObject());
+        members.forEach(member -> index.computeIfPresent(member, (k, regs) -> Snapshots.without(regs, registration)));
+    }
+
+    @Override
+    public List<Registration<K, ? extends V>> select(K key) {
+        List<Registration<K, ? extends V>> regs = key != null ? index.get(key) : null;
+        return regs != null ? regs : Collections.emptyList();
+    }
+}
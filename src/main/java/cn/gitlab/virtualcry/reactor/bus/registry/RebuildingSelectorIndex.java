@@ -0,0 +1,96 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * {@link SelectorIndex} backed by a structure that is expensive to update in place. The structure is built from all
+ * registrations on the first selection after the set of registrations changed, so a burst of changes costs a single
+ * rebuild.
+ *
+ * @param <S> The type of the structure built from the registrations
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+abstract class RebuildingSelectorIndex<K, V, S> implements SelectorIndex<K, V> {
+
+    private final List<Registration<K, ? extends V>>    registrations;
+    private volatile S                                  structure;
+
+
+    RebuildingSelectorIndex() {
+        this.registrations = new ArrayList<>();
+    }
+
+
+    @Override
+    public synchronized void add(Registration<K, ? extends V> registration) {
+        registrations.add(registration);
+        structure = null;
+    }
+
+    @Override
+    public synchronized void remove(Registration<K, ? extends V> registration) {
+        if (registrations.remove(registration))
+            structure = null;
+    }
+
+    @Override
+    public synchronized void addAll(Collection<Registration<K, ? extends V>> registrations) {
+        this.registrations.addAll(registrations);
+        structure = null;
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Registration<K, ? extends V>> registrations) {
+        if (this.registrations.removeAll(new HashSet<>(registrations)))
+            structure = null;
+    }
+
+    @Override
+    public List<Registration<K, ? extends V>> select(K key) {
+        return select(key, structure());
+    }
+
+
+    /**
+     * Get the structure built from the current registrations, building it if they changed since.
+     *
+     * @return The structure to select from
+     */
+    protected S structure() {
+        S structure = this.structure;
+        if (structure == null)
+            structure = rebuild();
+        return structure;
+    }
+
+
+    /**
+     * Build the structure to select from.
+     *
+     * @param registrations The current registrations of this index
+     * @return The new structure
+     */
+    protected abstract S build(List<Registration<K, ? extends V>> registrations);
+
+
+    /**
+     * Select the matching registrations from the given structure.
+     *
+     * @param key       The key for the Selectors to match
+     * @param structure The structure built from the current registrations
+     * @return The matching registrations, never {@code null}
+     */
+    protected abstract List<Registration<K, ? extends V>> select(K key, S structure);
+
+
+    private synchronized S rebuild() {
+        if (structure == null)
+            structure = build(new ArrayList<>(registrations));
+        return structure;
+    }
+}
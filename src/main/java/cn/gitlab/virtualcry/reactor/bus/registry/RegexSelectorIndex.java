@@ -0,0 +1,105 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.RegexSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * {@link SelectorIndex} that groups {@link RegexSelector}s into a character trie over the literal prefix every match
+ * of their {@link Pattern} has to start with. A single pass over the key walks the trie and collects the only
+ * patterns that can still match it; just those are run. Patterns without a literal prefix are always run.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class RegexSelectorIndex<K, V> extends RebuildingSelectorIndex<K, V, RegexSelectorIndex.Node> {
+
+    private static final String                         META_CHARS = ".[]{}()*+?^$|\\";
+
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return sel.getClass() == RegexSelector.class;
+    }
+
+    @Override
+    protected Node build(List<Registration<K, ? extends V>> registrations) {
+        Node root = new Node();
+        for (Registration<K, ? extends V> registration : registrations) {
+            String prefix = literalPrefix((Pattern) registration.getSelector().getObject());
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++)
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            node.registrations.add(registration);
+        }
+        return root;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected List<Registration<K, ? extends V>> select(K key, Node root) {
+        String s = String.valueOf(key);
+        List<Registration<K, ? extends V>> selectedRegs = null;
+        Node node = root;
+        int i = 0;
+        while (node != null) {
+            for (int j = 0; j < node.registrations.size(); j++) {
+                Registration<K, ? extends V> registration = (Registration<K, ? extends V>) node.registrations.get(j);
+                if (((Pattern) registration.getSelector().getObject()).matcher(s).matches()) {
+                    if (selectedRegs == null)
+                        selectedRegs = new ArrayList<>();
+                    selectedRegs.add(registration);
+                }
+            }
+            node = i < s.length() ? node.children.get(s.charAt(i++)) : null;
+        }
+        return selectedRegs != null ? selectedRegs : Collections.emptyList();
+    }
+
+
+    /**
+     * The literal characters every match of the given {@link Pattern} starts with. Conservative: stops at the first
+     * construct that isn't a plain or escaped literal, and gives up on flags and alternations.
+     */
+    static String literalPrefix(Pattern pattern) {
+        String regex = pattern.pattern();
+        if (pattern.flags() != 0 || regex.indexOf('|') >= 0)
+            return "";
+        StringBuilder prefix = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int next;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1)))
+                    break;
+                c = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (META_CHARS.indexOf(c) >= 0 || Character.isSurrogate(c)) {
+                break;
+            } else {
+                next = i + 1;
+            }
+            if (next < regex.length()) {
+                char quantifier = regex.charAt(next);
+                if (quantifier == '*' || quantifier == '?' || quantifier == '{')
+                    break;
+                if (quantifier == '+') {
+                    prefix.append(c);
+                    break;
+                }
+            }
+            prefix.append(c);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+
+    static final class Node {
+        private final Map<Character, Node>              children      = new HashMap<>();
+        private final List<Registration<?, ?>>          registrations = new ArrayList<>();
+    }
+}
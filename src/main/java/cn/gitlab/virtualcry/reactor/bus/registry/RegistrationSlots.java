@@ -0,0 +1,127 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A compact store of {@link CacheableRegistration}s: an array of slots and a free list of the slots that were
+ * released. Each stored registration remembers its slot, so it is removed in constant time without any key object.
+ * Changes are serialized; reads need no lock and see a slot array that is at worst the one before the last time the
+ * store grew.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class RegistrationSlots<K, V> implements Iterable<CacheableRegistration<K, ? extends V>> {
+
+    private static final int                            INITIAL_CAPACITY = 16;
+
+    private volatile AtomicReferenceArray<CacheableRegistration<K, ? extends V>>
+                                                        slots;
+    private int[]                                       freeSlots;
+    private int                                         freeCount;
+    private int                                         used;
+
+
+    RegistrationSlots() {
+        this.slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        this.freeSlots = new int[INITIAL_CAPACITY];
+    }
+
+
+    /**
+     * Store the given registration in a free slot.
+     */
+    synchronized void add(CacheableRegistration<K, ? extends V> registration) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == slots.length())
+                grow();
+            slot = used++;
+        }
+        registration.assign(slot);
+        slots.set(slot, registration);
+    }
+
+    /**
+     * Release the slot of the given registration.
+     *
+     * @return {@literal false} if the registration was not stored here
+     */
+    synchronized boolean remove(CacheableRegistration<K, ? extends V> registration) {
+        int slot = registration.getSlot();
+        AtomicReferenceArray<CacheableRegistration<K, ? extends V>> slots = this.slots;
+        if (slot < 0 || slot >= slots.length() || slots.get(slot) != registration)
+            return false;
+        slots.set(slot, null);
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Release all slots.
+     */
+    synchronized void clear() {
+        this.slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        this.freeSlots = new int[INITIAL_CAPACITY];
+        this.freeCount = 0;
+        this.used = 0;
+    }
+
+    /**
+     * Get the current slot array, for an indexed scan that skips empty slots.
+     */
+    AtomicReferenceArray<CacheableRegistration<K, ? extends V>> slots() {
+        return slots;
+    }
+
+    @Override @NonNull
+    public Iterator<CacheableRegistration<K, ? extends V>> iterator() {
+        AtomicReferenceArray<CacheableRegistration<K, ? extends V>> slots = this.slots;
+        return new Iterator<CacheableRegistration<K, ? extends V>>() {
+            private int                                 index;
+            private CacheableRegistration<K, ? extends V> next = advance();
+
+            private CacheableRegistration<K, ? extends V> advance() {
+                while (index < slots.length()) {
+                    CacheableRegistration<K, ? extends V> registration = slots.get(index++);
+                    if (registration != null)
+                        return registration;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public CacheableRegistration<K, ? extends V> next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                CacheableRegistration<K, ? extends V> registration = next;
+                next = advance();
+                return registration;
+            }
+        };
+    }
+
+
+    private void grow() {
+        AtomicReferenceArray<CacheableRegistration<K, ? extends V>> slots = this.slots;
+        AtomicReferenceArray<CacheableRegistration<K, ? extends V>> newSlots =
+                new AtomicReferenceArray<>(slots.length() * 2);
+        for (int i = 0; i < slots.length(); i++)
+            newSlots.set(i, slots.get(i));
+        this.slots = newSlots;
+    }
+}
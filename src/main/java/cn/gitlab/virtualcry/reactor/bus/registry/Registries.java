@@ -17,6 +17,40 @@ public abstract class Registries {
                                                Consumer<K> onNotFound,
                                                Consumer<Registration<K, ? extends V>> onRegister,
                                                Consumer<Registration<K, ? extends V>> onUnregister) {
-        return new CachingRegistry<>(useL2Cache, onNotFound, onRegister, onUnregister);
+        return create(useL2Cache, false, onNotFound, onRegister, onUnregister);
+    }
+
+    /**
+     * Create a {@link CachingRegistry}.
+     *
+     * @param useL2Cache  Whether to cache the selections per key
+     * @param cacheMisses Whether to remember the keys that matched nothing, until a selector matching them is
+     *                    registered. Only safe when no selector's matches change after it was registered.
+     */
+    public static <K, V> Registry<K, V> create(boolean useL2Cache,
+                                               boolean cacheMisses,
+                                               Consumer<K> onNotFound,
+                                               Consumer<Registration<K, ? extends V>> onRegister,
+                                               Consumer<Registration<K, ? extends V>> onUnregister) {
+        return new CachingRegistry<>(useL2Cache, cacheMisses, onNotFound, onRegister, onUnregister);
+    }
+
+    public static <K, V> Registry<K, V> createIndexed(Consumer<K> onNotFound,
+                                                      Consumer<Registration<K, ? extends V>> onRegister,
+                                                      Consumer<Registration<K, ? extends V>> onUnregister) {
+        return createIndexed(false, onNotFound, onRegister, onUnregister);
+    }
+
+    /**
+     * Create an {@link IndexedRegistry}.
+     *
+     * @param cacheMisses Whether to remember the keys that matched nothing, until a selector matching them is
+     *                    registered. Only safe when no selector's matches change after it was registered.
+     */
+    public static <K, V> Registry<K, V> createIndexed(boolean cacheMisses,
+                                                      Consumer<K> onNotFound,
+                                                      Consumer<Registration<K, ? extends V>> onRegister,
+                                                      Consumer<Registration<K, ? extends V>> onUnregister) {
+        return new IndexedRegistry<>(cacheMisses, onNotFound, onRegister, onUnregister);
     }
 }
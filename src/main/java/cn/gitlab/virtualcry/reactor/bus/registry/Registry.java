@@ -1,7 +1,10 @@
 package cn.gitlab.virtualcry.reactor.bus.registry;
 
 import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import reactor.util.function.Tuple2;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -29,6 +32,21 @@ public interface Registry<K, V> extends Iterable<Registration<K, ? extends V>> {
     Registration<K, V> register(Selector<K> sel, V obj);
 
 
+    /**
+     * Assign each {@link Selector} with its object, as one batch. Implementations may apply the batch at once instead
+     * of registering each pair in turn.
+     *
+     * @param registrations The {@literal Selector}s and the objects to assign them
+     * @return The {@link Registration}s, in the order of the given pairs
+     */
+    default List<Registration<K, V>> registerAll(Collection<? extends Tuple2<? extends Selector<K>, ? extends V>> registrations) {
+        List<Registration<K, V>> regs = new ArrayList<>(registrations.size());
+        for (Tuple2<? extends Selector<K>, ? extends V> registration : registrations)
+            regs.add(register(registration.getT1(), registration.getT2()));
+        return regs;
+    }
+
+
     /**
      * Remove any objects matching this {@code key}. This will unregister <b>all</b> objects matching the given
      * {@literal key}. There's no provision for removing only a specific object.
@@ -39,6 +57,17 @@ public interface Registry<K, V> extends Iterable<Registration<K, ? extends V>> {
     boolean unregister(K key);
 
 
+    /**
+     * Cancel the given {@link Registration}s, as one batch. Implementations may apply the batch at once instead of
+     * cancelling each registration in turn.
+     *
+     * @param registrations The {@literal Registration}s to cancel
+     */
+    default void cancelAll(Collection<? extends Registration<K, ? extends V>> registrations) {
+        registrations.forEach(Registration::cancel);
+    }
+
+
     /**
      * Select {@link Registration}s whose {@link Selector} {@link Selector#matches(Object)} the given {@code key}.
      *
@@ -48,6 +77,65 @@ public interface Registry<K, V> extends Iterable<Registration<K, ? extends V>> {
     List<Registration<K, ? extends V>> select(K key);
 
 
+    /**
+     * Select {@link Registration}s whose {@link Selector} {@link Selector#matches(Object)} the given numeric
+     * {@code key}. The default boxes the key; registries that index
+     * {@link cn.gitlab.virtualcry.reactor.bus.selector.LongSelector LongSelector}s look it up without boxing. The method
+     * has a name of its own rather than overloading {@link #select(Object)}, so that an {@code int} key is still matched
+     * as an {@link Integer}.
+     *
+     * @param key The key for the Selectors to match
+     * @return A {@link List} of {@link Registration}s whose {@link Selector} matches the given key.
+     */
+    @SuppressWarnings("unchecked")
+    default List<Registration<K, ? extends V>> selectLong(long key) {
+        return select((K) Long.valueOf(key));
+    }
+
+
+    /**
+     * Whether any {@link Registration}'s {@link Selector} {@link Selector#matches(Object)} the given numeric
+     * {@code key}, without reporting a key without matches as not found.
+     *
+     * @param key The key for the Selectors to match
+     * @return {@literal true} if there are any matching {@literal Registration}s, {@literal false} otherwise
+     * @see #selectLong(long)
+     */
+    @SuppressWarnings("unchecked")
+    default boolean respondsToLongKey(long key) {
+        return respondsToKey((K) Long.valueOf(key));
+    }
+
+
+    /**
+     * Whether any {@link Registration}'s {@link Selector} {@link Selector#matches(Object)} the given {@code key}. Unlike
+     * {@link #select(Object)}, a key without matches is not reported as not found.
+     *
+     * @param key The key for the Selectors to match
+     * @return {@literal true} if there are any matching {@literal Registration}s, {@literal false} otherwise
+     */
+    default boolean respondsToKey(K key) {
+        for (Registration<K, ? extends V> registration : this) {
+            if (registration.getSelector().matches(key))
+                return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Whether the given {@code key} is already known to match no {@link Registration}, without selecting it. Registries
+     * that remember keys without matches answer from memory; any other key, and every key by default, has to be
+     * {@link #select(Object) selected} to find out.
+     *
+     * @param key The key for the Selectors to match
+     * @return {@literal true} if the key is known to match no {@literal Registration}, {@literal false} otherwise
+     */
+    default boolean isKnownMiss(K key) {
+        return false;
+    }
+
+
     /**
      * Clear the {@link Registry}, resetting its state.
      */
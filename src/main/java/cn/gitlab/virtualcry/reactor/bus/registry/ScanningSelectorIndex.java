@@ -0,0 +1,89 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link SelectorIndex} that accepts any {@link Selector} and matches each one in turn. The registrations are kept in
+ * an array snapshot that is swapped on every change, so selecting needs neither a lock nor an iterator.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class ScanningSelectorIndex<K, V> implements SelectorIndex<K, V> {
+
+    private volatile Registration<K, ? extends V>[]     registrations;
+
+
+    ScanningSelectorIndex() {
+        this.registrations = Snapshots.newArray(Registration.class, 0);
+    }
+
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return true;
+    }
+
+    @Override
+    public synchronized void add(Registration<K, ? extends V> registration) {
+        Registration<K, ? extends V>[] regs = registrations;
+        Registration<K, ? extends V>[] newRegs = Arrays.copyOf(regs, regs.length + 1);
+        newRegs[regs.length] = registration;
+        registrations = newRegs;
+    }
+
+    @Override
+    public synchronized void remove(Registration<K, ? extends V> registration) {
+        Registration<K, ? extends V>[] regs = registrations;
+        for (int i = 0; i < regs.length; i++) {
+            if (regs[i] == registration) {
+                Registration<K, ? extends V>[] newRegs = Arrays.copyOf(regs, regs.length - 1);
+                System.arraycopy(regs, i + 1, newRegs, i, regs.length - i - 1);
+                registrations = newRegs;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addAll(Collection<Registration<K, ? extends V>> registrations) {
+        Registration<K, ? extends V>[] regs = this.registrations;
+        Registration<K, ? extends V>[] newRegs = Arrays.copyOf(regs, regs.length + registrations.size());
+        int i = regs.length;
+        for (Registration<K, ? extends V> registration : registrations)
+            newRegs[i++] = registration;
+        this.registrations = newRegs;
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Registration<K, ? extends V>> registrations) {
+        Set<Registration<K, ? extends V>> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(registrations);
+        this.registrations = Arrays.stream(this.registrations)
+                .filter(registration -> !removed.contains(registration))
+                .toArray(length -> Snapshots.<Registration<K, ? extends V>>newArray(Registration.class, length));
+    }
+
+    @Override
+    public List<Registration<K, ? extends V>> select(K key) {
+        List<Registration<K, ? extends V>> selectedRegs = null;
+        Registration<K, ? extends V>[] regs = registrations;
+        for (int i = 0; i < regs.length; i++) {
+            Registration<K, ? extends V> registration = regs[i];
+            if (registration.getSelector().matches(key)) {
+                if (selectedRegs == null)
+                    selectedRegs = new ArrayList<>();
+                selectedRegs.add(registration);
+            }
+        }
+        return selectedRegs != null ? selectedRegs : Collections.emptyList();
+    }
+}
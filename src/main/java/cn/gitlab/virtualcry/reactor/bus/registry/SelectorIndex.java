@@ -0,0 +1,68 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A part of an {@link IndexedRegistry} that serves the {@link Registration}s of one family of {@link Selector}s.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+interface SelectorIndex<K, V> {
+
+    /**
+     * Whether the {@link Registration}s of the given {@link Selector} can be served by this index.
+     *
+     * @param sel The {@literal Selector} of the registration
+     * @return {@literal true} if this index accepts the selector
+     */
+    boolean accepts(Selector<K> sel);
+
+
+    /**
+     * Add a {@link Registration} whose {@link Selector} this index {@link #accepts(Selector) accepts}.
+     *
+     * @param registration The {@literal Registration} to add
+     */
+    void add(Registration<K, ? extends V> registration);
+
+
+    /**
+     * Remove a {@link Registration} previously added to this index.
+     *
+     * @param registration The {@literal Registration} to remove
+     */
+    void remove(Registration<K, ? extends V> registration);
+
+
+    /**
+     * Add a batch of {@link Registration}s, as {@link #add(Registration)} would one by one.
+     *
+     * @param registrations The {@literal Registration}s to add
+     */
+    default void addAll(Collection<Registration<K, ? extends V>> registrations) {
+        registrations.forEach(this::add);
+    }
+
+
+    /**
+     * Remove a batch of {@link Registration}s, as {@link #remove(Registration)} would one by one.
+     *
+     * @param registrations The {@literal Registration}s to remove
+     */
+    default void removeAll(Collection<Registration<K, ? extends V>> registrations) {
+        registrations.forEach(this::remove);
+    }
+
+
+    /**
+     * Select the {@link Registration}s of this index whose {@link Selector} matches the given {@code key}.
+     *
+     * @param key The key for the Selectors to match
+     * @return The matching registrations, never {@code null}. May be a shared, unmodifiable snapshot.
+     */
+    List<Registration<K, ? extends V>> select(K key);
+}
@@ -0,0 +1,41 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for the immutable list and array snapshots kept by {@link SelectorIndex}es.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+abstract class Snapshots {
+
+    private Snapshots() {
+    }
+
+    static <T> List<T> with(List<T> items, T item) {
+        List<T> newItems = new ArrayList<>(items != null ? items.size() + 1 : 1);
+        if (items != null)
+            newItems.addAll(items);
+        newItems.add(item);
+        return Collections.unmodifiableList(newItems);
+    }
+
+    static <T> List<T> without(List<T> items, T item) {
+        List<T> newItems = new ArrayList<>(items);
+        newItems.remove(item);
+        return newItems.isEmpty() ? null : Collections.unmodifiableList(newItems);
+    }
+
+    /**
+     * Create an array of a generic element type, such as {@code Registration<K, ? extends V>}, without a raw type at
+     * the call site. The array is of the given component type, so it can be held in a field of the generic array type.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T[] newArray(Class<? super T> componentType, int length) {
+        return (T[]) Array.newInstance(componentType, length);
+    }
+}
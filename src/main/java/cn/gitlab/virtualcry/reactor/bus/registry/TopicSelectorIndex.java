@@ -0,0 +1,91 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.selector.TopicSelector;
+
+import java.util.*;
+
+/**
+ * {@link SelectorIndex} that matches topic keys against all {@link TopicSelector}s in one walk of a trie over the
+ * words of their patterns. At each word of the key only the literal child, the {@code '*'} child and the {@code '#'}
+ * child are followed, so the cost depends on the depth of the key rather than on the number of selectors.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class TopicSelectorIndex<K, V> extends RebuildingSelectorIndex<K, V, TopicSelectorIndex.Node> {
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return sel.getClass() == TopicSelector.class;
+    }
+
+    @Override
+    protected Node build(List<Registration<K, ? extends V>> registrations) {
+        Node root = new Node();
+        registrations.forEach(registration -> {
+            Node node = root;
+            for (String word : ((TopicSelector) registration.getSelector()).getWords())
+                node = node.child(word);
+            node.registrations.add(registration);
+        });
+        return root;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<Registration<K, ? extends V>> select(K key, Node root) {
+        if (root.isEmpty() || !(key instanceof String))
+            return Collections.emptyList();
+        List<Node> reached = new ArrayList<>();
+        walk(root, TopicSelector.split((String) key), 0, reached);
+        if (reached.isEmpty())
+            return Collections.emptyList();
+        if (reached.size() == 1)
+            return (List) Collections.unmodifiableList(reached.get(0).registrations);
+        List<Registration<K, ? extends V>> selectedRegs = new ArrayList<>();
+        for (Node node : reached)
+            for (Registration<?, ?> registration : node.registrations)
+                selectedRegs.add((Registration<K, ? extends V>) registration);
+        return selectedRegs;
+    }
+
+
+    private static void walk(Node node, String[] words, int index, List<Node> reached) {
+        if (index == words.length) {
+            if (!node.registrations.isEmpty() && !reached.contains(node))
+                reached.add(node);
+            if (node.anyWords != null)
+                walk(node.anyWords, words, index, reached);
+            return;
+        }
+        Node child = node.words.get(words[index]);
+        if (child != null)
+            walk(child, words, index + 1, reached);
+        if (node.anyWord != null)
+            walk(node.anyWord, words, index + 1, reached);
+        if (node.anyWords != null)
+            for (int next = index; next <= words.length; next++)
+                walk(node.anyWords, words, next, reached);
+    }
+
+
+    static final class Node {
+        private final Map<String, Node>                 words         = new HashMap<>();
+        private Node                                    anyWord;
+        private Node                                    anyWords;
+        private final List<Registration<?, ?>>          registrations = new ArrayList<>();
+
+        private Node child(String word) {
+            if (TopicSelector.ANY_WORD.equals(word))
+                return anyWord != null ? anyWord : (anyWord = new Node());
+            if (TopicSelector.ANY_WORDS.equals(word))
+                return anyWords != null ? anyWords : (anyWords = new Node());
+            return words.computeIfAbsent(word, w -> new Node());
+        }
+
+        private boolean isEmpty() {
+            return words.isEmpty() && anyWord == null && anyWords == null && registrations.isEmpty();
+        }
+    }
+}
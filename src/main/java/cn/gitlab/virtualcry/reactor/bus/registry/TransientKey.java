@@ -0,0 +1,12 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+/**
+ * Marks a key that is only selected a few times before it is never seen again, such as the correlation key of a
+ * reply. A {@link Registry} that remembers keys without matches never remembers a transient key, so a stream of them
+ * does not push out the keys worth remembering.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public interface TransientKey {
+}
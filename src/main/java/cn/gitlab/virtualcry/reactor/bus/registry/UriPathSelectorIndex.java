@@ -0,0 +1,40 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriPathSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriPathTemplate;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriPathTemplateTree;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link SelectorIndex} that matches a path against all {@link UriPathSelector}s in a single walk of a
+ * {@link UriPathTemplateTree}.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class UriPathSelectorIndex<K, V> extends RebuildingSelectorIndex<K, V,
+        UriPathTemplateTree<Registration<K, ? extends V>>> {
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return sel.getClass() == UriPathSelector.class
+                && UriPathTemplateTree.supports((UriPathTemplate) sel.getObject());
+    }
+
+    @Override
+    protected UriPathTemplateTree<Registration<K, ? extends V>> build(List<Registration<K, ? extends V>> registrations) {
+        UriPathTemplateTree<Registration<K, ? extends V>> tree = new UriPathTemplateTree<>();
+        registrations.forEach(registration ->
+                tree.put((UriPathTemplate) registration.getSelector().getObject(), registration));
+        return tree;
+    }
+
+    @Override
+    protected List<Registration<K, ? extends V>> select(K key,
+                                                        UriPathTemplateTree<Registration<K, ? extends V>> tree) {
+        return key instanceof String ? tree.select((String) key) : Collections.emptyList();
+    }
+}
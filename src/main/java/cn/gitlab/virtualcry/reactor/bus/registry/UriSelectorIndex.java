@@ -0,0 +1,85 @@
+package cn.gitlab.virtualcry.reactor.bus.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriKey;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriSelector;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * {@link SelectorIndex} that looks {@link UriSelector}s up by the components of the key, level by level: scheme, host,
+ * port and path. At each level only the exact component of the key and the wildcard are followed, and the fragment is
+ * checked on the selectors at the end of the walk. The key is parsed once through {@link UriKey}.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+class UriSelectorIndex<K, V> extends RebuildingSelectorIndex<K, V, UriSelectorIndex.Node> {
+
+    private static final String                         ANY_SCHEME  = "*";
+    private static final String                         ANY_HOST    = "*";
+    private static final Integer                        ANY_PORT    = -1;
+    private static final String                         ANY_PATH    = "/*";
+
+
+    @Override
+    public boolean accepts(Selector<K> sel) {
+        return sel.getClass() == UriSelector.class;
+    }
+
+    @Override
+    protected Node build(List<Registration<K, ? extends V>> registrations) {
+        Node root = new Node();
+        registrations.forEach(registration -> {
+            UriSelector sel = (UriSelector) registration.getSelector();
+            root.child(sel.getScheme())
+                    .child(sel.getHost())
+                    .child(sel.getPort())
+                    .child(sel.getPath())
+                    .registrations.add(registration);
+        });
+        return root;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<Registration<K, ? extends V>> select(K key, Node root) {
+        if (root.children.isEmpty() || null == key)
+            return Collections.emptyList();
+        UriKey uriKey = UriKey.of(key);
+        if (null == uriKey)
+            return Collections.emptyList();
+        URI uri = uriKey.getUri();
+
+        List<Registration<K, ? extends V>> selectedRegs = new ArrayList<>();
+        for (Node schemes : root.children(uri.getScheme(), ANY_SCHEME))
+            for (Node hosts : schemes.children(uri.getHost(), ANY_HOST))
+                for (Node ports : hosts.children(uri.getPort(), ANY_PORT))
+                    for (Node paths : ports.children(uri.getPath(), ANY_PATH))
+                        for (Registration<?, ?> registration : paths.registrations) {
+                            String fragment = ((UriSelector) registration.getSelector()).getFragment();
+                            if (null == fragment || fragment.equals(uri.getFragment()))
+                                selectedRegs.add((Registration<K, ? extends V>) registration);
+                        }
+        return selectedRegs.isEmpty() ? Collections.emptyList() : selectedRegs;
+    }
+
+
+    static final class Node {
+        private final Map<Object, Node>                 children      = new HashMap<>();
+        private final List<Registration<?, ?>>          registrations = new ArrayList<>();
+
+        private Node child(Object component) {
+            return children.computeIfAbsent(component, c -> new Node());
+        }
+
+        private List<Node> children(Object component, Object wildcard) {
+            Node exact = null == component ? null : children.get(component);
+            Node any = wildcard.equals(component) ? null : children.get(wildcard);
+            if (null == exact)
+                return null == any ? Collections.emptyList() : Collections.singletonList(any);
+            return null == any ? Collections.singletonList(exact) : Arrays.asList(exact, any);
+        }
+    }
+}
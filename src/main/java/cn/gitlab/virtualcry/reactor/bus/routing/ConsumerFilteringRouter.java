@@ -1,6 +1,7 @@
 package cn.gitlab.virtualcry.reactor.bus.routing;
 
 import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.PooledEvent;
 import cn.gitlab.virtualcry.reactor.bus.filter.Filter;
 import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
 import cn.gitlab.virtualcry.reactor.bus.support.Assert;
@@ -14,7 +15,7 @@ import java.util.function.Consumer;
 
 /**
  * An {@link Router} that {@link Filter#filter filters} consumers before routing events to
- * them.
+ * them. A {@link PooledEvent} is released once the last consumer it was delivered to has returned.
  *
  * @author VirtualCry
  * @since 3.2.2
@@ -46,27 +47,39 @@ public class ConsumerFilteringRouter implements Router {
     public <E extends Event<?>> void route(Object key, E ev,
                                               List<Registration<Object, ? extends Consumer<? extends Event<?>>>> registrations,
                                               Consumer<Throwable> errorConsumer) {
-        routerScheduler.schedule(() -> filter.filter(registrations, key).stream()
-                .filter(registration -> !registration.isCancelled())
-                .peek(registration -> {
+        routerScheduler.schedule(() -> {
+            try {
+                for (Registration<Object, ? extends Consumer<? extends Event<?>>> registration : filter.filter(registrations, key)) {
+                    if (registration.isCancelled())
+                        continue;
                     if (logger.isDebugEnabled())
                         logger.debug("Delivered event. - {}: {} → {}", ev.getKey(), ev.getId(), registration.getObject());
-                })
-                .forEach(registration -> consumerScheduler.schedule(() -> {
-                    try {
-                        ((Consumer<E>) registration.getObject()).accept(ev);
-                    }
-                    catch (Throwable t) {
-                        if (null != errorConsumer)
-                            errorConsumer.accept(t);
-                        else
-                            logger.error("Error in handling event. - " + ev.getKey() + ": " + ev.getId(), t);
-                    }
-                    finally {
-                        if (registration.isCancelAfterUse())
-                            registration.cancel();
-                    }
-                }))
-        );
+                    // a pooled event is held until the last consumer returned.
+                    if (ev instanceof PooledEvent)
+                        ((PooledEvent<?>) ev).retain();
+                    consumerScheduler.schedule(() -> {
+                        try {
+                            ((Consumer<E>) registration.getObject()).accept(ev);
+                        }
+                        catch (Throwable t) {
+                            if (null != errorConsumer)
+                                errorConsumer.accept(t);
+                            else
+                                logger.error("Error in handling event. - " + ev.getKey() + ": " + ev.getId(), t);
+                        }
+                        finally {
+                            if (registration.isCancelAfterUse())
+                                registration.cancel();
+                            if (ev instanceof PooledEvent)
+                                ((PooledEvent<?>) ev).release();
+                        }
+                    });
+                }
+            }
+            finally {
+                if (ev instanceof PooledEvent)
+                    ((PooledEvent<?>) ev).release();
+            }
+        });
     }
 }
@@ -0,0 +1,70 @@
+package cn.gitlab.virtualcry.reactor.bus.selector;
+
+/**
+ * A {@link Selector} implementation that matches numeric {@code long} keys, such as instrument ids. It matches a
+ * {@link Long} key of the same value, and can be matched against a primitive key with {@link #matches(long)} so that
+ * registries indexing it can be looked up without boxing.
+ * <p/>
+ * An example of creating a long Selector would be:
+ * <p/>
+ * <code>Selectors.longKey(42L)</code>
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class LongSelector extends ObjectSelector<Object, Long> {
+
+	private final long 									value;
+
+
+	/**
+	 * Create a {@link Selector} matching the given value.
+	 *
+	 * @param value The value of the keys to match
+	 */
+	public LongSelector(long value) {
+		super(value);
+		this.value = value;
+	}
+
+	/**
+	 * Creates a {@link Selector} based on the given value.
+	 *
+	 * @param value The value of the keys to match.
+	 *
+	 * @return The new {@link Selector}.
+	 */
+	public static Selector longSelector(long value) {
+		return new LongSelector(value);
+	}
+
+	/**
+	 * Get the value of the keys this selector matches.
+	 *
+	 * @return The value
+	 */
+	public long getValue() {
+		return value;
+	}
+
+	@Override
+	public boolean matches(Object key) {
+		return key instanceof Long && (Long) key == value;
+	}
+
+	/**
+	 * Whether the given primitive key matches this selector.
+	 *
+	 * @param key The key to match
+	 *
+	 * @return {@literal true} if the key has the value of this selector
+	 */
+	public boolean matches(long key) {
+		return key == value;
+	}
+
+	@Override
+	protected Object clone() throws CloneNotSupportedException {
+		return new LongSelector(value);
+	}
+}
@@ -246,6 +246,38 @@ public abstract class Selectors {
 	}
 
 
+	/**
+	 * Creates a {@link Selector} that matches
+	 * hierarchical topic keys with {@code '*'} and {@code '#'} wildcards.
+	 *
+	 * @param topic
+	 * 		The topic pattern, words separated by {@code '.'}
+	 *
+	 * @return The new {@link TopicSelector}
+	 *
+	 * @see TopicSelector
+	 */
+	public static Selector topic(String topic) {
+		return new TopicSelector(topic);
+	}
+
+
+	/**
+	 * Creates a {@link Selector} that matches
+	 * numeric keys of the given value, looked up without boxing by registries that index them.
+	 *
+	 * @param value
+	 * 		The value of the keys to match
+	 *
+	 * @return The new {@link LongSelector}
+	 *
+	 * @see LongSelector
+	 */
+	public static Selector longKey(long value) {
+		return new LongSelector(value);
+	}
+
+
 	public static class AnonymousKey {
 		private final int hashCode = HASH_CODES.getAndIncrement() << 2;
 
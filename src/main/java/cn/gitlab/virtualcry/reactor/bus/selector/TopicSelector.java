@@ -0,0 +1,117 @@
+package cn.gitlab.virtualcry.reactor.bus.selector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Selector} implementation that matches hierarchical topic keys, with wildcards as used by AMQP topic
+ * exchanges. Both the topic pattern and the key are split into words on {@code '.'}; in the pattern, {@code '*'}
+ * matches exactly one word and {@code '#'} matches zero or more words.
+ * <p/>
+ * An example of creating a topic Selector would be:
+ * <p/>
+ * <code>Selectors.topic("orders.*.created")</code>
+ * <p/>
+ * This would match keys like:
+ * <p/>
+ * <code>"orders.eu.created"</code> or <code>"orders.us.created"</code>, and
+ * <code>Selectors.topic("orders.#")</code> would match all of them as well as <code>"orders"</code>.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class TopicSelector extends ObjectSelector<Object, String> {
+
+	/** The wildcard matching exactly one word. */
+	public static final String 							ANY_WORD  = "*";
+	/** The wildcard matching zero or more words. */
+	public static final String 							ANY_WORDS = "#";
+
+	private final String[] 								words;
+
+
+	/**
+	 * Create a {@link Selector} from the given topic pattern.
+	 *
+	 * @param topic The topic pattern, words separated by {@code '.'}
+	 */
+	public TopicSelector(String topic) {
+		super(topic);
+		this.words = normalize(split(topic));
+	}
+
+	/**
+	 * Creates a {@link Selector} based on the given topic pattern.
+	 *
+	 * @param topic The topic pattern.
+	 *
+	 * @return The new {@link Selector}.
+	 */
+	public static Selector topicSelector(String topic) {
+		return new TopicSelector(topic);
+	}
+
+	/**
+	 * Split a topic into its words. Empty words are kept, so {@code "a..b"} has three words.
+	 *
+	 * @param topic The topic to split
+	 *
+	 * @return The words of the topic
+	 */
+	public static String[] split(String topic) {
+		List<String> words = new ArrayList<>();
+		int start = 0;
+		for (int i = topic.indexOf('.'); i >= 0; i = topic.indexOf('.', start)) {
+			words.add(topic.substring(start, i));
+			start = i + 1;
+		}
+		words.add(topic.substring(start));
+		return words.toArray(new String[0]);
+	}
+
+	/**
+	 * Get the words of the topic pattern. Runs of {@link #ANY_WORDS} are collapsed into one, which matches the same
+	 * keys.
+	 *
+	 * @return The unmodifiable words of the pattern
+	 */
+	public List<String> getWords() {
+		return Collections.unmodifiableList(Arrays.asList(words));
+	}
+
+	@Override
+	public boolean matches(Object key) {
+		return key instanceof String && matches(words, 0, split((String) key), 0);
+	}
+
+
+	private static boolean matches(String[] pattern, int p, String[] key, int k) {
+		for (; p < pattern.length; p++, k++) {
+			if (ANY_WORDS.equals(pattern[p])) {
+				for (int next = k; next <= key.length; next++) {
+					if (matches(pattern, p + 1, key, next)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			if (k == key.length || !(ANY_WORD.equals(pattern[p]) || pattern[p].equals(key[k]))) {
+				return false;
+			}
+		}
+		return k == key.length;
+	}
+
+	private static String[] normalize(String[] words) {
+		List<String> normalized = new ArrayList<>(words.length);
+		for (String word : words) {
+			if (!(ANY_WORDS.equals(word) && !normalized.isEmpty()
+					&& ANY_WORDS.equals(normalized.get(normalized.size() - 1)))) {
+				normalized.add(word);
+			}
+		}
+		return normalized.toArray(new String[0]);
+	}
+}
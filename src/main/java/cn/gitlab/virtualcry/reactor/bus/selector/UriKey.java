@@ -0,0 +1,107 @@
+package cn.gitlab.virtualcry.reactor.bus.selector;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A notification key parsed as a {@link URI}. A key is parsed once and the result is shared by every
+ * {@link UriSelector} match and header resolution for it, on any thread, for as long as it stays in a small recently
+ * used table.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public final class UriKey {
+
+	private static final int 							RECENT_KEYS = 256;
+	private static final AtomicReferenceArray<UriKey> 	RECENT      = new AtomicReferenceArray<>(RECENT_KEYS);
+
+	private final Object 								source;
+	private final URI 									uri;
+	private volatile Map<String, Object> 				headers;
+
+
+	private UriKey(Object source, URI uri) {
+		this.source = source;
+		this.uri = uri;
+	}
+
+
+	/**
+	 * Get the parsed form of the given key.
+	 *
+	 * @param key The notification key, a {@link URI} or a {@link String}
+	 *
+	 * @return The parsed key, or {@code null} if the key is neither a {@link URI} nor a {@link String}
+	 *
+	 * @throws IllegalArgumentException if the key is a {@link String} that is not a valid {@link URI}
+	 */
+	public static UriKey of(Object key) {
+		if (key instanceof URI) {
+			return new UriKey(key, (URI) key);
+		}
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int slot = key.hashCode() & (RECENT_KEYS - 1);
+		UriKey uriKey = RECENT.get(slot);
+		if (null == uriKey || (uriKey.source != key && !uriKey.source.equals(key))) {
+			uriKey = new UriKey(key, URI.create((String) key));
+			RECENT.lazySet(slot, uriKey);
+		}
+		return uriKey;
+	}
+
+	/**
+	 * Get the parsed {@link URI}.
+	 *
+	 * @return The {@link URI}
+	 */
+	public URI getUri() {
+		return uri;
+	}
+
+	/**
+	 * Get the headers encoded in the {@link URI}: its components, and the decoded parameters of its query.
+	 *
+	 * @return The unmodifiable headers
+	 */
+	public Map<String, Object> getHeaders() {
+		Map<String, Object> headers = this.headers;
+		if (null == headers) {
+			this.headers = headers = Collections.unmodifiableMap(resolveHeaders());
+		}
+		return headers;
+	}
+
+	private Map<String, Object> resolveHeaders() {
+		Map<String, Object> headers = new HashMap<String, Object>();
+
+		headers.put("authority", uri.getAuthority());
+		headers.put("fragment", uri.getFragment());
+		headers.put("host", uri.getHost());
+		headers.put("path", uri.getPath());
+		headers.put("port", String.valueOf(uri.getPort()));
+		headers.put("query", uri.getQuery());
+		if(null != uri.getQuery()) {
+			try {
+				String query = URLDecoder.decode(uri.getQuery(), "ISO-8859-1");
+				for(String s : query.split("&")) {
+					String[] parts = s.split("=");
+					headers.put(parts[0], parts[1]);
+				}
+			} catch(UnsupportedEncodingException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+		headers.put("scheme", uri.getScheme());
+		headers.put("userInfo", uri.getUserInfo());
+
+		return headers;
+	}
+}
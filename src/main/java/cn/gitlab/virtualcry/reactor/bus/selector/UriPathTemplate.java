@@ -1,6 +1,10 @@
 package cn.gitlab.virtualcry.reactor.bus.selector;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,12 +37,28 @@ public class UriPathTemplate {
 	private static final String  NAME_REPLACEMENT = "(?<%NAME%>[^\\/.]*)";
 	//private static final String  NAME_REPLACEMENT = "([^\\/.]*)";
 
-	private final List<String>                         pathVariables = new ArrayList<String>();
-	private final HashMap<String, Matcher>             matchers      = new HashMap<String, Matcher>();
-	private final HashMap<String, Map<String, Object>> vars          = new HashMap<String, Map<String, Object>>();
+	private static final String  REGEX_META_CHARS = "\\.[]{}()*+?^$|";
+
+	/**
+	 * The number of uris whose path parameters are cached, shared by all templates.
+	 */
+	public static final int      CACHE_SIZE = 4096;
+
+	// keyed by the compiled pattern and the uri, so templates of the same pattern share their entries.
+	private static final Cache<PathKey, Map<String, Object>> VARS = Caffeine.newBuilder()
+			.maximumSize(CACHE_SIZE)
+			.recordStats()
+			.build();
+
+	private final List<String> pathVariables = new ArrayList<String>();
 
 	private final Pattern uriPattern;
 
+	// the template split on '/' up to the first splat, and the remainder from there on. Both are null if a
+	// literal part of the template holds regex syntax, in which case matching falls back to the pattern.
+	private final Token[][] segments;
+	private final Token[]   tail;
+
 	/**
 	 * Creates a new {@code UriPathTemplate} from the given {@code uriPattern}.
 	 *
@@ -47,11 +67,31 @@ public class UriPathTemplate {
 	public UriPathTemplate(String uriPattern) {
 		String s = "^" + uriPattern;
 
+		String[] rawSegments = uriPattern.split("/", -1);
+		List<Token[]> segments = new ArrayList<>();
+		Token[] tail = null;
+		boolean literal = true;
+		for (int i = 0; i < rawSegments.length && tail == null; i++) {
+			if (rawSegments[i].contains("**")) {
+				int offset = 0;
+				for (int j = 0; j < i; j++)
+					offset += rawSegments[j].length() + 1;
+				tail = tokenize(uriPattern.substring(offset));
+			} else {
+				segments.add(tokenize(rawSegments[i]));
+			}
+		}
+		for (Token[] segment : segments)
+			literal &= collectPathVariables(segment);
+		if (tail != null)
+			literal &= collectPathVariables(tail);
+		this.segments = literal ? segments.toArray(new Token[0][]) : null;
+		this.tail = literal ? tail : null;
+
 		Matcher m = NAME_SPLAT_PATTERN.matcher(s);
 		while (m.find()) {
 			for (int i = 1; i <= m.groupCount(); i++) {
 				String name = m.group(i);
-				pathVariables.add(name);
 				s = m.replaceFirst(NAME_SPLAT_REPLACEMENT.replaceAll("%NAME%", name));
 				m.reset(s);
 			}
@@ -61,7 +101,6 @@ public class UriPathTemplate {
 		while (m.find()) {
 			for (int i = 1; i <= m.groupCount(); i++) {
 				String name = m.group(i);
-				pathVariables.add(name);
 				s = m.replaceFirst(NAME_REPLACEMENT.replaceAll("%NAME%", name));
 				m.reset(s);
 			}
@@ -85,48 +124,260 @@ public class UriPathTemplate {
 	 * @return {@code true} if there's a match, {@code false} otherwise
 	 */
 	public boolean matches(String uri) {
-		return matcher(uri).matches();
+		if (null != segments) {
+			return matchPath(uri, new String[pathVariables.size()]);
+		}
+		return uriPattern.matcher(uri).matches();
 	}
 
 	/**
 	 * Matches the template against the given {@code uri} returning a map of path parameters
 	 * extracted from the uri, keyed by the names in the template. If the uri does not match,
-	 * or there are no path parameters, an empty map is returned.
+	 * or there are no path parameters, an empty map is returned. The parameters of the last
+	 * {@link #CACHE_SIZE} uris matched by any template are cached.
 	 *
 	 * @param uri The uri to match
 	 *
-	 * @return the path parameters from the uri. Never {@code null}.
+	 * @return the path parameters from the uri, unmodifiable. Never {@code null}.
 	 */
 	public Map<String, Object> match(String uri) {
-		Map<String, Object> pathParameters = vars.get(uri);
-		if (null != pathParameters) {
-			return pathParameters;
-		}
+		return VARS.get(new PathKey(uriPattern.pattern(), uri), key -> doMatch(uri));
+	}
 
-		pathParameters = new HashMap<>();
-		Matcher m = matcher(uri);
-		if (m.matches()) {
+	/**
+	 * Get the number of {@link #match(String)} calls of all templates served from the cache of path parameters.
+	 *
+	 * @return The cache hit count
+	 */
+	public static long getCacheHitCount() {
+		return VARS.stats().hitCount();
+	}
+
+	/**
+	 * Get the number of {@link #match(String)} calls of all templates that had to match the uri.
+	 *
+	 * @return The cache miss count
+	 */
+	public static long getCacheMissCount() {
+		return VARS.stats().missCount();
+	}
+
+	private Map<String, Object> doMatch(String uri) {
+		Map<String, Object> pathParameters = new HashMap<>();
+		if (null != segments) {
+			String[] values = new String[pathVariables.size()];
+			if (matchPath(uri, values)) {
+				for (int i = 0; i < values.length; i++) {
+					pathParameters.put(pathVariables.get(i), values[i]);
+				}
+			}
+		}
+		Matcher m;
+		if (null == segments && (m = uriPattern.matcher(uri)).matches()) {
 			int i = 1;
 			for (String name : pathVariables) {
 				String val = m.group(i++);
 				pathParameters.put(name, val);
 			}
 		}
-		synchronized (vars) {
-			vars.put(uri, pathParameters);
+
+		return Collections.unmodifiableMap(pathParameters);
+	}
+
+	/**
+	 * Whether this template can be matched segment by segment, without its regular expression.
+	 */
+	boolean isSegmented() {
+		return null != segments;
+	}
+
+	Token[][] getSegments() {
+		return segments;
+	}
+
+	Token[] getTail() {
+		return tail;
+	}
+
+	List<String> getPathVariables() {
+		return pathVariables;
+	}
+
+	private boolean matchPath(String path, String[] values) {
+		int pos = 0;
+		int valueIndex = 0;
+		boolean hasSegment = true;
+		for (Token[] segment : segments) {
+			if (!hasSegment) {
+				return false;
+			}
+			int end = segmentEnd(path, pos);
+			if (!matchTokens(segment, 0, path, pos, end, values, valueIndex)) {
+				return false;
+			}
+			valueIndex += variableCount(segment);
+			hasSegment = end < path.length();
+			pos = end + 1;
+		}
+		if (null != tail) {
+			return hasSegment && matchTokens(tail, 0, path, pos, path.length(), values, valueIndex);
+		}
+		return !hasSegment;
+	}
+
+	private boolean collectPathVariables(Token[] tokens) {
+		boolean literal = true;
+		for (Token token : tokens) {
+			if (token.type == Token.LITERAL) {
+				for (int i = 0; i < token.text.length(); i++) {
+					literal &= REGEX_META_CHARS.indexOf(token.text.charAt(i)) < 0;
+				}
+			} else if (null != token.text) {
+				pathVariables.add(token.text);
+			}
+		}
+		return literal;
+	}
+
+	private static Token[] tokenize(String s) {
+		List<Token> tokens = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while (i < s.length()) {
+			char c = s.charAt(i);
+			if (c == '{') {
+				int j = i + 1;
+				while (j < s.length() && s.charAt(j) != '}' && s.charAt(j) != '/') {
+					j++;
+				}
+				if (j < s.length() && s.charAt(j) == '}' && j > i + 1) {
+					flush(literal, tokens);
+					boolean splat = s.startsWith("**", j + 1);
+					tokens.add(new Token(splat ? Token.SPLAT : Token.VARIABLE, s.substring(i + 1, j)));
+					i = splat ? j + 3 : j + 1;
+					continue;
+				}
+			} else if (c == '*' && s.startsWith("**", i)) {
+				flush(literal, tokens);
+				tokens.add(new Token(Token.SPLAT, null));
+				i += 2;
+				continue;
+			}
+			literal.append(c);
+			i++;
 		}
+		flush(literal, tokens);
+		return tokens.toArray(new Token[0]);
+	}
+
+	private static void flush(StringBuilder literal, List<Token> tokens) {
+		if (literal.length() > 0) {
+			tokens.add(new Token(Token.LITERAL, literal.toString()));
+			literal.setLength(0);
+		}
+	}
+
+	static int segmentEnd(String path, int pos) {
+		int end = path.indexOf('/', pos);
+		return end < 0 ? path.length() : end;
+	}
 
-		return pathParameters;
+	static int variableCount(Token[] tokens) {
+		int count = 0;
+		for (Token token : tokens) {
+			if (token.type != Token.LITERAL && null != token.text) {
+				count++;
+			}
+		}
+		return count;
 	}
 
-	private Matcher matcher(String uri) {
-		Matcher m = matchers.get(uri);
-		if (null == m) {
-			m = uriPattern.matcher(uri);
-			synchronized (matchers) {
-				matchers.put(uri, m);
+	/**
+	 * Match {@code tokens} from {@code index} against {@code s} between {@code pos} and {@code end}, the same way the
+	 * compiled pattern would: a variable takes {@code [^/.]*} and a splat takes {@code .*}, longest first. Values of
+	 * named tokens are stored into {@code values} from {@code valueIndex} on.
+	 */
+	static boolean matchTokens(Token[] tokens, int index, String s, int pos, int end, String[] values, int valueIndex) {
+		if (index == tokens.length) {
+			return pos == end;
+		}
+		Token token = tokens[index];
+		if (token.type == Token.LITERAL) {
+			return end - pos >= token.text.length()
+					&& s.startsWith(token.text, pos)
+					&& matchTokens(tokens, index + 1, s, pos + token.text.length(), end, values, valueIndex);
+		}
+		int max = pos;
+		while (max < end && token.accepts(s.charAt(max))) {
+			max++;
+		}
+		int nextValueIndex = null != token.text ? valueIndex + 1 : valueIndex;
+		for (int i = max; i >= pos; i--) {
+			if (matchTokens(tokens, index + 1, s, i, end, values, nextValueIndex)) {
+				if (null != token.text) {
+					values[valueIndex] = s.substring(pos, i);
+				}
+				return true;
 			}
 		}
-		return m;
+		return false;
+	}
+
+
+	/**
+	 * The key of the path parameters of a uri matched by a template.
+	 */
+	private static final class PathKey {
+		private final String template;
+		private final String path;
+
+		private PathKey(String template, String path) {
+			this.template = template;
+			this.path = path;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof PathKey)) {
+				return false;
+			}
+			PathKey other = (PathKey) o;
+			return template.equals(other.template) && path.equals(other.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * template.hashCode() + path.hashCode();
+		}
+	}
+
+
+	static final class Token {
+		static final int LITERAL  = 0;
+		static final int VARIABLE = 1;
+		static final int SPLAT    = 2;
+
+		final int    type;
+		final String text;
+
+		Token(int type, String text) {
+			this.type = type;
+			this.text = text;
+		}
+
+		boolean accepts(char c) {
+			if (type == VARIABLE) {
+				return c != '/' && c != '.';
+			}
+			// '.' doesn't match line terminators.
+			return c != '\n' && c != '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029';
+		}
+
+		String shape() {
+			return type == LITERAL ? text : (type == VARIABLE ? "{}" : "{}**");
+		}
 	}
 }
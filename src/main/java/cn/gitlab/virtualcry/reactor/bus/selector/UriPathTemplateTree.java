@@ -0,0 +1,154 @@
+package cn.gitlab.virtualcry.reactor.bus.selector;
+
+import cn.gitlab.virtualcry.reactor.bus.selector.UriPathTemplate.Token;
+
+import java.util.*;
+
+/**
+ * A radix tree of {@link UriPathTemplate}s over path segments. A path is matched against every template in the tree
+ * in a single walk: literal segments are looked up by hash, segments holding variables are shared by all templates
+ * with the same shape, and templates with a splat finish the walk from the segment the splat starts in.
+ * <p>
+ * Only templates that can be matched without their regular expression are accepted, see {@link #put}. The tree is not
+ * thread-safe; build it fully before publishing it to other threads.
+ *
+ * @param <T> The type of value associated with each template
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class UriPathTemplateTree<T> {
+
+	private final Node<T> 								root;
+	private int 										maxPathVariables;
+
+
+	public UriPathTemplateTree() {
+		this.root = new Node<>();
+	}
+
+
+	/**
+	 * Whether the given template can be added to a tree.
+	 *
+	 * @param template The template to check
+	 *
+	 * @return {@code true} if the template can be matched segment by segment
+	 */
+	public static boolean supports(UriPathTemplate template) {
+		return template.isSegmented();
+	}
+
+	/**
+	 * Associate the given {@code value} with the given {@code template}.
+	 *
+	 * @param template The template to match paths with
+	 * @param value    The value to return for matching paths
+	 *
+	 * @return {@code false} if the template is not {@link #supports supported} and was not added
+	 */
+	public boolean put(UriPathTemplate template, T value) {
+		if (!supports(template)) {
+			return false;
+		}
+		Node<T> node = root;
+		for (Token[] segment : template.getSegments()) {
+			node = node.child(segment);
+		}
+		Entry<T> entry = new Entry<>(template, value);
+		if (null != template.getTail()) {
+			node.tails.add(entry);
+		} else {
+			node.terminals.add(entry);
+		}
+		maxPathVariables = Math.max(maxPathVariables, template.getPathVariables().size());
+		return true;
+	}
+
+	/**
+	 * Select the values of all templates matching the given {@code path}.
+	 *
+	 * @param path The path to match
+	 *
+	 * @return The values of the matching templates, never {@code null}
+	 */
+	public List<T> select(String path) {
+		List<T> values = new ArrayList<>();
+		walk(root, path, 0, true, new String[maxPathVariables], 0, (entry, pathVariables) -> values.add(entry.value));
+		return values.isEmpty() ? Collections.emptyList() : values;
+	}
+
+
+	private void walk(Node<T> node, String path, int pos, boolean hasSegment,
+					  String[] values, int valueIndex, Visitor<T> visitor) {
+		if (!hasSegment) {
+			for (Entry<T> entry : node.terminals) {
+				visitor.visit(entry, values);
+			}
+			return;
+		}
+		for (Entry<T> entry : node.tails) {
+			if (UriPathTemplate.matchTokens(entry.template.getTail(), 0, path, pos, path.length(), values, valueIndex)) {
+				visitor.visit(entry, values);
+			}
+		}
+		int end = UriPathTemplate.segmentEnd(path, pos);
+		boolean next = end < path.length();
+		Node<T> child = node.literals.get(path.substring(pos, end));
+		if (null != child) {
+			walk(child, path, end + 1, next, values, valueIndex, visitor);
+		}
+		for (Edge<T> edge : node.patterns.values()) {
+			if (UriPathTemplate.matchTokens(edge.tokens, 0, path, pos, end, values, valueIndex)) {
+				walk(edge.child, path, end + 1, next, values, valueIndex + edge.pathVariables, visitor);
+			}
+		}
+	}
+
+
+	private interface Visitor<T> {
+		void visit(Entry<T> entry, String[] pathVariables);
+	}
+
+	private static final class Node<T> {
+		private final Map<String, Node<T>> 				literals  = new HashMap<>();
+		private final Map<String, Edge<T>> 				patterns  = new LinkedHashMap<>();
+		private final List<Entry<T>> 					tails     = new ArrayList<>();
+		private final List<Entry<T>> 					terminals = new ArrayList<>();
+
+		private Node<T> child(Token[] segment) {
+			StringBuilder shape = new StringBuilder();
+			boolean literal = true;
+			for (Token token : segment) {
+				shape.append(token.shape());
+				literal &= token.type == Token.LITERAL;
+			}
+			if (literal) {
+				return literals.computeIfAbsent(shape.toString(), s -> new Node<>());
+			}
+			return patterns.computeIfAbsent(shape.toString(), s -> new Edge<>(segment)).child;
+		}
+	}
+
+	private static final class Edge<T> {
+		private final Token[] 							tokens;
+		private final int 								pathVariables;
+		private final Node<T> 							child;
+
+		private Edge(Token[] tokens) {
+			this.tokens = tokens;
+			this.pathVariables = UriPathTemplate.variableCount(tokens);
+			this.child = new Node<>();
+		}
+	}
+
+	private static final class Entry<T> {
+		private final UriPathTemplate 					template;
+		private final T 								value;
+
+		private Entry(UriPathTemplate template, T value) {
+			this.template = template;
+			this.value = value;
+		}
+	}
+}
@@ -1,9 +1,6 @@
 package cn.gitlab.virtualcry.reactor.bus.selector;
 
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URLDecoder;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -84,6 +81,51 @@ public class UriSelector extends ObjectSelector<Object, URI> {
 	}
 
 
+	/**
+	 * Get the scheme to match, {@code "*"} for any scheme.
+	 *
+	 * @return The scheme
+	 */
+	public String getScheme() {
+		return scheme;
+	}
+
+	/**
+	 * Get the host to match, {@code "*"} for any host.
+	 *
+	 * @return The host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * Get the port to match, {@code -1} for any port.
+	 *
+	 * @return The port
+	 */
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * Get the path to match, {@code "/*"} for any path.
+	 *
+	 * @return The path
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Get the fragment to match, {@code null} for any fragment.
+	 *
+	 * @return The fragment
+	 */
+	public String getFragment() {
+		return fragment;
+	}
+
 	@Override
 	public HeaderResolver getHeaderResolver() {
 		return URI_HEADER_RESOLVER;
@@ -95,12 +137,13 @@ public class UriSelector extends ObjectSelector<Object, URI> {
 			return false;
 		}
 
-		URI uri = objectToURI(key);
+		UriKey uriKey = UriKey.of(key);
 
-		if(uri == null){
+		if(uriKey == null){
 			return false;
 		}
 
+		URI uri = uriKey.getUri();
 		boolean schemeMatches = "*".equals(scheme) || scheme.equals(uri.getScheme());
 		boolean hostMatches = "*".equals(host) || host.equals(uri.getHost());
 		boolean portMatches = -1 == port || port == uri.getPort();
@@ -114,16 +157,6 @@ public class UriSelector extends ObjectSelector<Object, URI> {
 				&& fragmentMatches;
 	}
 
-	private static URI objectToURI(Object key) {
-		if(key instanceof URI) {
-			return (URI)key;
-		} else if(key instanceof String) {
-			return URI.create(key.toString());
-		} else {
-			return null;
-		}
-	}
-
 	private static class UriHeaderResolver implements HeaderResolver {
 
 		@Override
@@ -132,35 +165,9 @@ public class UriSelector extends ObjectSelector<Object, URI> {
 				return null;
 			}
 
-			URI uri = objectToURI(key);
-
-			if(uri == null){
-				return null;
-			}
-
-			Map<String, Object> headers = new HashMap<String, Object>();
-
-			headers.put("authority", uri.getAuthority());
-			headers.put("fragment", uri.getFragment());
-			headers.put("host", uri.getHost());
-			headers.put("path", uri.getPath());
-			headers.put("port", String.valueOf(uri.getPort()));
-			headers.put("query", uri.getQuery());
-			if(null != uri.getQuery()) {
-				try {
-					String query = URLDecoder.decode(uri.getQuery(), "ISO-8859-1");
-					for(String s : query.split("&")) {
-						String[] parts = s.split("=");
-						headers.put(parts[0], parts[1]);
-					}
-				} catch(UnsupportedEncodingException e) {
-					throw new IllegalArgumentException(e);
-				}
-			}
-			headers.put("scheme", uri.getScheme());
-			headers.put("userInfo", uri.getUserInfo());
+			UriKey uriKey = UriKey.of(key);
 
-			return headers;
+			return null != uriKey ? uriKey.getHeaders() : null;
 		}
 	}
 }
@@ -1,16 +1,29 @@
 package cn.gitlab.virtualcry.reactor.bus.spec;
 
 import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.BoundedEventDispatcher;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.Dispatcher;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.EventDispatcher;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.MpscEventDispatcher;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.OverflowPolicy;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.RingBufferEventDispatcher;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import cn.gitlab.virtualcry.reactor.bus.routing.Router;
+import cn.gitlab.virtualcry.reactor.bus.support.Assert;
 import reactor.core.publisher.*;
 import reactor.util.concurrent.Queues;
+import reactor.util.concurrent.WaitStrategy;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * A generic environment-aware class for specifying components that need to be configured
- * with a {@link FluxProcessor}.
+ * with a built-in {@link Dispatcher}, backed by a {@link FluxProcessor}, a {@link MpscEventDispatcher}
+ * or a {@link RingBufferEventDispatcher}.
  *
  * @author VirtualCry
  * @since 3.2.2
@@ -21,10 +34,16 @@ public abstract class BuiltInDispatcherComponentSpec<SPEC extends
 
     private DispatcherType                          dispatcherType;
     private int                                     dispatcherCount;
+    private int                                     dispatcherCapacity;
+    private WaitStrategy                            waitStrategy;
+    private OverflowPolicy                          overflowPolicy;
+    private Duration                                blockTimeout;
 
 
     BuiltInDispatcherComponentSpec() {
         this.dispatcherCount = Runtime.getRuntime().availableProcessors();
+        this.waitStrategy = RingBufferEventDispatcher.defaultWaitStrategy();
+        this.blockTimeout = BoundedEventDispatcher.DEFAULT_BLOCK_TIMEOUT;
     }
 
 
@@ -88,6 +107,78 @@ public abstract class BuiltInDispatcherComponentSpec<SPEC extends
     }
 
 
+    /**
+     * Configures the component to use the dispatcher
+     * - {@link MpscEventDispatcher}, which any number of threads can publish to at the same time.
+     *
+     * @return {@code inner this}
+     */
+    public final SPEC mpscDispatcher() {
+        this.dispatcherType = DispatcherType.MPSC;
+        return (SPEC) this;
+    }
+
+
+    /**
+     * Configures the component to use the dispatcher
+     * - {@link MpscEventDispatcher} with queues holding the given {@code capacity} of events.
+     *
+     * @param capacity The number of events a dispatcher queues, rounded up to a power of two
+     *
+     * @return {@code inner this}
+     */
+    public final SPEC mpscDispatcher(int capacity) {
+        this.mpscDispatcher();
+        return this.dispatcherCapacity(capacity);
+    }
+
+
+    /**
+     * Configures the component to use the dispatcher
+     * - {@link RingBufferEventDispatcher}, waiting with the default strategy of Reactor's processors.
+     *
+     * @return {@code inner this}
+     */
+    public final SPEC ringBufferDispatcher() {
+        this.dispatcherType = DispatcherType.RING_BUFFER;
+        return (SPEC) this;
+    }
+
+
+    /**
+     * Configures the component to use the dispatcher
+     * - {@link RingBufferEventDispatcher}, waiting for events with the given {@code waitStrategy}, such as
+     * {@link WaitStrategy#busySpin()}, {@link WaitStrategy#yielding()}, {@link WaitStrategy#parking()} or
+     * {@link WaitStrategy#liteBlocking()}.
+     *
+     * @param waitStrategy The strategy to wait for events with
+     *
+     * @return {@code inner this}
+     */
+    public final SPEC ringBufferDispatcher(WaitStrategy waitStrategy) {
+        Assert.notNull(waitStrategy, "Wait strategy must not be null.");
+        this.dispatcherType = DispatcherType.RING_BUFFER;
+        this.waitStrategy = waitStrategy;
+        return (SPEC) this;
+    }
+
+
+    /**
+     * Configures the component to use the dispatcher
+     * - {@link RingBufferEventDispatcher} with rings holding the given {@code capacity} of events, waiting for events
+     * with the given {@code waitStrategy}.
+     *
+     * @param capacity     The number of events a ring holds, rounded up to a power of two
+     * @param waitStrategy The strategy to wait for events with
+     *
+     * @return {@code inner this}
+     */
+    public final SPEC ringBufferDispatcher(int capacity, WaitStrategy waitStrategy) {
+        this.ringBufferDispatcher(waitStrategy);
+        return this.dispatcherCapacity(capacity);
+    }
+
+
     /**
      * Configures the component to use the given {@code dispatcherCount}.
      *
@@ -101,41 +192,135 @@ public abstract class BuiltInDispatcherComponentSpec<SPEC extends
     }
 
 
-    protected final List<FluxProcessor<Event<?>, Event<?>>> createBuiltInDispatchers() {
+    /**
+     * Configures the component to use dispatchers queueing at most the given {@code dispatcherCapacity} of events
+     * each. The queue of the {@link reactor.core.publisher.UnicastProcessor} dispatcher is unbounded unless a capacity
+     * or an {@link #overflowPolicy(OverflowPolicy) overflow policy} is set; the other dispatchers are bounded by
+     * default, and wait for room when full. The capacity of the replay dispatcher is its history size. It does not
+     * apply to dispatcher instances given to the component.
+     *
+     * @param dispatcherCapacity The capacity to use
+     *
+     * @return {@code this}
+     */
+    public final SPEC dispatcherCapacity(int dispatcherCapacity) {
+        Assert.isTrue(dispatcherCapacity > 0, "Capacity must be positive.");
+        this.dispatcherCapacity = dispatcherCapacity;
+        return (SPEC) this;
+    }
+
+
+    /**
+     * Configures the {@link reactor.core.publisher.UnicastProcessor} dispatcher to bound its queue, and to apply the
+     * given {@code overflowPolicy} to events published while it is full. A publisher waits for room at most
+     * {@link BoundedEventDispatcher#DEFAULT_BLOCK_TIMEOUT} with {@link OverflowPolicy#BLOCK}. It does not apply to
+     * dispatcher instances given to the component.
+     *
+     * @param overflowPolicy The policy to use
+     *
+     * @return {@code this}
+     */
+    public final SPEC overflowPolicy(OverflowPolicy overflowPolicy) {
+        Assert.notNull(overflowPolicy, "Overflow policy must not be null.");
+        this.overflowPolicy = overflowPolicy;
+        return (SPEC) this;
+    }
+
+
+    /**
+     * Configures the {@link reactor.core.publisher.UnicastProcessor} dispatcher to bound its queue, and to apply the
+     * given {@code overflowPolicy} to events published while it is full, waiting for room at most the given
+     * {@code blockTimeout} with {@link OverflowPolicy#BLOCK}.
+     *
+     * @param overflowPolicy The policy to use
+     * @param blockTimeout   The time to wait for room
+     *
+     * @return {@code this}
+     */
+    public final SPEC overflowPolicy(OverflowPolicy overflowPolicy, Duration blockTimeout) {
+        Assert.isTrue(blockTimeout != null && !blockTimeout.isNegative(), "Block timeout must not be negative.");
+        this.blockTimeout = blockTimeout;
+        return this.overflowPolicy(overflowPolicy);
+    }
+
+
+    protected final List<Dispatcher<Event<?>>> createBuiltInDispatchers(
+            Registry<Object, Consumer<? extends Event<?>>> consumerRegistry,
+            Router router,
+            Consumer<Throwable> dispatchErrorHandler) {
         if (dispatcherType == null)
             defaultDispatcher();
+        if (overflowPolicy != null && dispatcherType != DispatcherType.UNICAST_PROCESSOR)
+            throw new IllegalArgumentException("Overflow policies only apply to the unicast dispatcher. - dispatcher type: "
+                    + dispatcherType);
         return Stream.iterate(0, i -> i + 1)
                 .limit(dispatcherCount)
                 .map(i -> {
                     switch (dispatcherType) {
                         case UNICAST_PROCESSOR:
-                            return UnicastProcessor.<Event<?>>create();
-                        case REPLAY_PROCESSOR:
-                            return ReplayProcessor.<Event<?>>create(Queues.SMALL_BUFFER_SIZE, true);
-                        case TOPIC_PROCESSOR:
-                            return TopicProcessor.<Event<?>>builder()
-                                    .bufferSize(Queues.SMALL_BUFFER_SIZE)
-                                    .share(true)
-                                    .autoCancel(false)
-                                    .build();
-                        case WORK_QUEUE_PROCESSOR:
-                            return WorkQueueProcessor.<Event<?>>builder()
-                                    .bufferSize(Queues.SMALL_BUFFER_SIZE)
-                                    .share(true)
-                                    .autoCancel(false)
-                                    .build();
+                            if (dispatcherCapacity == 0 && overflowPolicy == null)
+                                return new EventDispatcher(
+                                        createProcessor(), consumerRegistry, router, dispatchErrorHandler);
+                            return new BoundedEventDispatcher(
+                                    capacityOr(BoundedEventDispatcher.DEFAULT_CAPACITY),
+                                    overflowPolicy != null ? overflowPolicy : OverflowPolicy.BLOCK,
+                                    blockTimeout, consumerRegistry, router, dispatchErrorHandler);
+                        case MPSC:
+                            return new MpscEventDispatcher(
+                                    capacityOr(MpscEventDispatcher.DEFAULT_CAPACITY),
+                                    consumerRegistry, router, dispatchErrorHandler);
+                        case RING_BUFFER:
+                            return new RingBufferEventDispatcher(
+                                    capacityOr(RingBufferEventDispatcher.DEFAULT_CAPACITY),
+                                    waitStrategy, consumerRegistry, router, dispatchErrorHandler);
                         default:
-                            throw new IllegalArgumentException("Unknown dispatcher type.");
+                            return new EventDispatcher(
+                                    createProcessor(), consumerRegistry, router, dispatchErrorHandler);
                     }
                 })
                 .collect(Collectors.toList());
     }
 
+    private FluxProcessor<Event<?>, Event<?>> createProcessor() {
+        switch (dispatcherType) {
+            case UNICAST_PROCESSOR:
+                return UnicastProcessor.create();
+            case REPLAY_PROCESSOR:
+                return ReplayProcessor.create(capacityOr(Queues.SMALL_BUFFER_SIZE), true);
+            case TOPIC_PROCESSOR:
+                return TopicProcessor.<Event<?>>builder()
+                        .bufferSize(Queues.ceilingNextPowerOfTwo(capacityOr(Queues.SMALL_BUFFER_SIZE)))
+                        .share(true)
+                        .autoCancel(false)
+                        .build();
+            case WORK_QUEUE_PROCESSOR:
+                return WorkQueueProcessor.<Event<?>>builder()
+                        .bufferSize(Queues.ceilingNextPowerOfTwo(capacityOr(Queues.SMALL_BUFFER_SIZE)))
+                        .share(true)
+                        .autoCancel(false)
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown dispatcher type.");
+        }
+    }
+
+    private int capacityOr(int defaultCapacity) {
+        return dispatcherCapacity > 0 ? dispatcherCapacity : defaultCapacity;
+    }
+
     protected DispatcherType getDispatcherType() {
         return dispatcherType;
     }
 
+    protected int getDispatcherCapacity() {
+        return dispatcherCapacity;
+    }
+
+    protected OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
     protected enum DispatcherType {
-        UNICAST_PROCESSOR, REPLAY_PROCESSOR, TOPIC_PROCESSOR, WORK_QUEUE_PROCESSOR
+        UNICAST_PROCESSOR, REPLAY_PROCESSOR, TOPIC_PROCESSOR, WORK_QUEUE_PROCESSOR, MPSC, RING_BUFFER
     }
 }
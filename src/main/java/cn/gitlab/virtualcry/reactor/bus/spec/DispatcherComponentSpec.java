@@ -36,7 +36,8 @@ public abstract class DispatcherComponentSpec<SPEC extends
 
 
     /**
-     * Configures the component to use the given {@code dispatchers}
+     * Configures the component to use the given {@code dispatchers}. They cannot be combined with a dispatcher type,
+     * a dispatcher capacity or an overflow policy, which only configure the built-in dispatchers.
      *
      * @param dispatchers The dispatchers to use
      *
@@ -66,8 +67,11 @@ public abstract class DispatcherComponentSpec<SPEC extends
         if (dispatchers != null && getDispatcherType() != null)
             throw new IllegalArgumentException("Because both the dispatcher type and the dispatcher instances are set, " +
                     "it is impossible to determine the type used for the dispatcher.");
+        if (dispatchers != null && (getDispatcherCapacity() > 0 || getOverflowPolicy() != null))
+            throw new IllegalArgumentException("Because the dispatcher instances are set, " +
+                    "the dispatcher capacity and the overflow policy cannot be applied to them.");
         return configure(createReactor(
-                dispatchers != null ? dispatchers : createBuiltInDispatchers(),
+                dispatchers,
                 loadBalanceStrategy != null ? loadBalanceStrategy : LoadBalanceStrategy.RANDOM
         ));
     }
@@ -83,9 +87,11 @@ public abstract class DispatcherComponentSpec<SPEC extends
                 consumerRegistry                 = routingComponent.getConsumerRegistry();
         Router router                            = routingComponent.getRouter();
         Consumer<Throwable> dispatchErrorHandler = routingComponent.getDispatchErrorHandler();
-        List<Dispatcher<Event<?>>> dispatchers   = dispatcherProcessors.stream()
-                .map(dispatcher -> new EventDispatcher(dispatcher, consumerRegistry, router, dispatchErrorHandler))
-                .collect(Collectors.toList());
+        List<Dispatcher<Event<?>>> dispatchers   = dispatcherProcessors == null ?
+                createBuiltInDispatchers(consumerRegistry, router, dispatchErrorHandler) :
+                dispatcherProcessors.stream()
+                        .map(dispatcher -> new EventDispatcher(dispatcher, consumerRegistry, router, dispatchErrorHandler))
+                        .collect(Collectors.toList());
         return new EventBus(
                 consumerRegistry,
                 dispatchers,
@@ -41,6 +41,9 @@ public abstract class EventRoutingComponentSpec<SPEC extends
 	private Consumer<Throwable> 					dispatchErrorHandler;
 	private Registry<Object,
 			Consumer<? extends Event<?>>>			consumerRegistry;
+	private Consumer<Object> 						consumerNotFoundHandler;
+	private boolean 								indexedRegistry = false;
+	private boolean 								cacheMisses = false;
 	private boolean 								traceEventPath = false;
 
 
@@ -260,7 +263,32 @@ public abstract class EventRoutingComponentSpec<SPEC extends
 	 * @return {@code this}
 	 */
 	public SPEC consumerNotFoundHandler(Consumer<Object> consumerNotFoundHandler) {
-		this.consumerRegistry = Registries.create(true, consumerNotFoundHandler, ON_REGISTER, ON_UNREGISTER);
+		this.consumerNotFoundHandler = consumerNotFoundHandler;
+		return (SPEC) this;
+	}
+
+
+	/**
+	 * Configures the component to use a {@link Registry} that indexes selectors by their object, so that keys
+	 * matched by object or set membership selectors are looked up without scanning every registration.
+	 *
+	 * @return {@code this}
+	 */
+	public final SPEC indexedRegistry() {
+		this.indexedRegistry = true;
+		return (SPEC) this;
+	}
+
+
+	/**
+	 * Configures the component's {@link Registry} to remember the keys that matched no consumer, until a selector
+	 * matching them is registered, so that events of such keys are dropped before they are dispatched. Only use it
+	 * when no selector's matches change after it was registered, as those of a predicate or a mutable set may.
+	 *
+	 * @return {@code this}
+	 */
+	public final SPEC cacheMisses() {
+		this.cacheMisses = true;
 		return (SPEC) this;
 	}
 
@@ -303,7 +331,9 @@ public abstract class EventRoutingComponentSpec<SPEC extends
 	}
 
 	private Registry createRegistry() {
-		return Registries.create(true, null, ON_REGISTER, ON_UNREGISTER);
+		return indexedRegistry ?
+				Registries.createIndexed(cacheMisses, consumerNotFoundHandler, ON_REGISTER, ON_UNREGISTER) :
+				Registries.create(true, cacheMisses, consumerNotFoundHandler, ON_REGISTER, ON_UNREGISTER);
 	}
 
 
@@ -0,0 +1,253 @@
+package cn.gitlab.virtualcry.reactor.bus.support;
+
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A timer that runs large numbers of short timeouts on a single thread. Timeouts are hashed into the buckets of a
+ * wheel by their deadline; on every tick the thread expires the bucket under the hand, so scheduling and cancelling
+ * are constant time and a timeout fires at most one tick late.
+ * <p/>
+ * The thread is a daemon that is started with the first timeout. Tasks run on it and should be short.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class HashedWheelTimer {
+    private final Logger                                logger;
+
+    private final String                                name;
+    private final long                                  tickNanos;
+    private final Bucket[]                              wheel;
+    private final int                                   mask;
+
+    private final Queue<Timeout>                        newTimeouts;
+    private final Queue<Timeout>                        cancelledTimeouts;
+    private long                                        startNanos;
+    private volatile boolean                            started;
+    private volatile boolean                            stopped;
+
+
+    /**
+     * Create a new timer.
+     *
+     * @param name          The name of the timer thread
+     * @param tickDuration  The duration of a tick
+     * @param unit          The unit of {@code tickDuration}
+     * @param ticksPerWheel The number of buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        Assert.notNull(name, "Name must not be null.");
+        Assert.isTrue(tickDuration > 0, "Tick duration must be positive.");
+        Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "Ticks per wheel must be in (0, 2^30].");
+        this.logger = Loggers.getLogger(this.getClass());
+
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        int buckets = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(buckets, 1)];
+        for (int i = 0; i < wheel.length; i++)
+            wheel[i] = new Bucket();
+        this.mask = wheel.length - 1;
+        this.newTimeouts = new ConcurrentLinkedQueue<>();
+        this.cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    }
+
+
+    /**
+     * Run the given task once the given delay has elapsed, unless the returned {@link Timeout} is cancelled first.
+     *
+     * @param task  The task to run
+     * @param delay The delay after which to run the task
+     * @param unit  The unit of {@code delay}
+     * @return A handle to cancel the timeout with
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Assert.notNull(task, "Task must not be null.");
+        Assert.state(!stopped, "Timer " + name + " is stopped.");
+        start();
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + unit.toNanos(Math.max(delay, 0)));
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stop the timer thread. Pending timeouts are dropped without running.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+
+    private void start() {
+        if (started)
+            return;
+        synchronized (this) {
+            if (started)
+                return;
+            startNanos = System.nanoTime();
+            Thread worker = new Thread(this::run, name);
+            worker.setDaemon(true);
+            worker.start();
+            started = true;
+        }
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = deadline - (System.nanoTime() - startNanos)) > 0 && !stopped)
+                LockSupport.parkNanos(this, sleepNanos);
+            removeCancelled();
+            transferNew(tick);
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private void transferNew(long tick) {
+        // bound the work per tick, so a flood of new timeouts can't stall the wheel.
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null)
+                return;
+            if (timeout.state != Timeout.PENDING)
+                continue;
+            long ticks = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null)
+                timeout.bucket.remove(timeout);
+        }
+    }
+
+
+    /**
+     * A handle to a task scheduled on a {@link HashedWheelTimer}.
+     */
+    public final class Timeout {
+        private static final int                        PENDING   = 0;
+        private static final int                        CANCELLED = 1;
+        private static final int                        EXPIRED   = 2;
+
+        private final Runnable                          task;
+        private final long                              deadline;
+        // not private, so the field updater of the enclosing class can access it.
+        volatile int                                    state;
+
+        // owned by the timer thread.
+        private long                                    remainingRounds;
+        private Bucket                                  bucket;
+        private Timeout                                 prev;
+        private Timeout                                 next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel this timeout, so its task does not run.
+         *
+         * @return {@literal false} if the task already ran or the timeout was already cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED))
+                return false;
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        /**
+         * Whether this timeout was cancelled.
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * Whether the task of this timeout ran.
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED))
+                return;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("Error in running timeout task. - timer: " + name, t);
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+
+    /**
+     * A doubly linked list of the timeouts hashed to one tick of the wheel, owned by the timer thread.
+     */
+    private static final class Bucket {
+        private Timeout                                 head;
+        private Timeout                                 tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.state != Timeout.PENDING) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this)
+                return;
+            if (timeout.prev != null)
+                timeout.prev.next = timeout.next;
+            else
+                head = timeout.next;
+            if (timeout.next != null)
+                timeout.next.prev = timeout.prev;
+            else
+                tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
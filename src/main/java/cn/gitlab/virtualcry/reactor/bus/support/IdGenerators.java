@@ -0,0 +1,41 @@
+package cn.gitlab.virtualcry.reactor.bus.support;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A helper class for creating the generators of event ids.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public abstract class IdGenerators {
+
+    private IdGenerators() {
+    }
+
+    /**
+     * Create a generator of random {@link UUID}s, backed by {@link UUID#randomUUID()}.
+     *
+     * @return The generator
+     */
+    public static Supplier<UUID> random() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * Create a generator of monotonic {@link UUID}s. The most significant bits are drawn at random once, to tell the
+     * ids of this generator from the ids of others; the least significant bits are a counter starting from the current
+     * time in milliseconds shifted left by 20 bits, so ids keep increasing across restarts unless more than a million
+     * ids per millisecond were generated. Generating an id is a single atomic increment.
+     *
+     * @return The generator
+     */
+    public static Supplier<UUID> monotonic() {
+        long node = ThreadLocalRandom.current().nextLong();
+        AtomicLong sequence = new AtomicLong(System.currentTimeMillis() << 20);
+        return () -> new UUID(node, sequence.incrementAndGet());
+    }
+}
@@ -0,0 +1,140 @@
+package cn.gitlab.virtualcry.reactor.bus.support;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for any number of producers and a single consumer, backed by an array. Producers claim a
+ * slot by incrementing the producer index and then publish the element into it; the consumer takes elements in slot
+ * order and frees each slot by advancing the consumer index. The two indexes are padded onto cache lines of their own,
+ * so producers and the consumer don't invalidate each other's line on every operation.
+ * <p/>
+ * Only one thread may call {@link #poll()} at a time.
+ *
+ * @param <E> The type of the elements
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+public class MpscArrayQueue<E> extends MpscArrayQueueConsumerIndex {
+
+    private final AtomicReferenceArray<E>               buffer;
+    private final int                                   mask;
+    private final int                                   capacity;
+
+
+    /**
+     * Create a new queue.
+     *
+     * @param capacity The number of elements the queue holds, rounded up to a power of two
+     */
+    public MpscArrayQueue(int capacity) {
+        Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "Capacity must be in (0, 2^30].");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.capacity = size;
+        this.producerLimit = size;
+    }
+
+
+    /**
+     * Add the given element, unless the queue is full.
+     *
+     * @param e The element to add
+     * @return {@literal false} if the queue is full
+     */
+    public boolean offer(E e) {
+        Assert.notNull(e, "Element must not be null.");
+        long limit = producerLimit;
+        long index;
+        do {
+            index = producerIndex;
+            if (index >= limit) {
+                // the cached limit is used up, look at how far the consumer got.
+                limit = consumerIndex + capacity;
+                if (index >= limit)
+                    return false;
+                producerLimit = limit;
+            }
+        } while (!PRODUCER_INDEX.compareAndSet(this, index, index + 1));
+        buffer.lazySet((int) (index & mask), e);
+        return true;
+    }
+
+    /**
+     * Take the next element. Must only be called by the consumer thread.
+     *
+     * @return The element, or {@literal null} if the queue is empty
+     */
+    public E poll() {
+        long index = consumerIndex;
+        int offset = (int) (index & mask);
+        E e = buffer.get(offset);
+        if (e == null) {
+            if (index == producerIndex)
+                return null;
+            // a producer claimed the slot but did not publish the element yet.
+            do {
+                e = buffer.get(offset);
+            } while (e == null);
+        }
+        buffer.lazySet(offset, null);
+        CONSUMER_INDEX.lazySet(this, index + 1);
+        return e;
+    }
+
+    /**
+     * Whether the queue holds no elements.
+     */
+    public boolean isEmpty() {
+        return consumerIndex == producerIndex;
+    }
+
+    /**
+     * Get the number of elements in the queue, which may be off while producers or the consumer are running.
+     */
+    public int size() {
+        long consumer = consumerIndex;
+        long size = producerIndex - consumer;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * Get the number of elements the queue holds.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+
+    private static final AtomicLongFieldUpdater<MpscArrayQueueProducerIndex> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducerIndex.class, "producerIndex");
+    private static final AtomicLongFieldUpdater<MpscArrayQueueConsumerIndex> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueConsumerIndex.class, "consumerIndex");
+}
+
+
+// the field layout follows the class hierarchy, so padding classes keep the hot fields apart.
+
+abstract class MpscArrayQueueHeadPadding {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+}
+
+abstract class MpscArrayQueueProducerIndex extends MpscArrayQueueHeadPadding {
+    volatile long                                   producerIndex;
+    // written by producers only, a stale value just makes them look at the consumer index again.
+    volatile long                                   producerLimit;
+}
+
+abstract class MpscArrayQueueMidPadding extends MpscArrayQueueProducerIndex {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p30, p31, p32, p33, p34, p35, p36;
+}
+
+abstract class MpscArrayQueueConsumerIndex extends MpscArrayQueueMidPadding {
+    volatile long                                   consumerIndex;
+    long p40, p41, p42, p43, p44, p45, p46, p47;
+    long p50, p51, p52, p53, p54, p55, p56;
+}
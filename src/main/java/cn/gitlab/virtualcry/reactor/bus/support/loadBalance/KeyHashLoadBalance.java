@@ -0,0 +1,96 @@
+package cn.gitlab.virtualcry.reactor.bus.support.loadBalance;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Key-hash strategy, according to a consistent-hash ring over the items to get item. Every item is placed on the ring
+ * at a number of virtual nodes, and a key is served by the item of the first node at or after the hash of the key, so
+ * the same key always gets the same item. When an item is added or removed, only the keys of its own nodes move to
+ * other items.
+ * <p/>
+ * Items are placed on the ring by identity, so a list holding the same items maps keys the same way.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+final class KeyHashLoadBalance implements LoadBalance {
+
+    private static final int                            VIRTUAL_NODES = 160;
+
+    private volatile Ring                               ring;
+
+    @Override
+    public <T> T get(List<T> items, Object... args) {
+        if (items == null || items.isEmpty())
+            return null;
+        Object key = args != null && args.length > 0 ? args[0] : null;
+        Ring ring = this.ring;
+        if (ring == null || !ring.isFor(items))
+            this.ring = ring = new Ring(items);
+        return items.get(ring.get(hash(key == null ? 0 : key.hashCode())));
+    }
+
+
+    private static long hash(long h) {
+        // the finalizer of MurmurHash3, to spread keys and nodes over the whole ring.
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+
+    /**
+     * The nodes of a list of items, sorted by their hash.
+     */
+    private static final class Ring {
+        private final List<?>                           items;
+        private final Object[]                          snapshot;
+        private final long[]                            hashes;
+        private final int[]                             indexes;
+
+        private Ring(List<?> items) {
+            this.items = items;
+            this.snapshot = items.toArray();
+            int nodes = snapshot.length * VIRTUAL_NODES;
+            long[] entries = new long[nodes];
+            long[] hashes = new long[nodes];
+            for (int i = 0, n = 0; i < snapshot.length; i++) {
+                long identity = (long) System.identityHashCode(snapshot[i]) << 32;
+                for (int v = 0; v < VIRTUAL_NODES; v++, n++)
+                    entries[n] = hash(identity | v);
+            }
+            // sort the nodes, keeping track of the item each of them belongs to.
+            Integer[] order = new Integer[nodes];
+            for (int n = 0; n < nodes; n++)
+                order[n] = n;
+            Arrays.sort(order, (a, b) -> Long.compare(entries[a], entries[b]));
+            this.indexes = new int[nodes];
+            for (int n = 0; n < nodes; n++) {
+                hashes[n] = entries[order[n]];
+                indexes[n] = order[n] / VIRTUAL_NODES;
+            }
+            this.hashes = hashes;
+        }
+
+        private boolean isFor(List<?> items) {
+            if (items != this.items || items.size() != snapshot.length)
+                return false;
+            for (int i = 0; i < snapshot.length; i++) {
+                if (items.get(i) != snapshot[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private int get(long hash) {
+            int node = Arrays.binarySearch(hashes, hash);
+            if (node < 0)
+                node = -node - 1;
+            return indexes[node == hashes.length ? 0 : node];
+        }
+    }
+}
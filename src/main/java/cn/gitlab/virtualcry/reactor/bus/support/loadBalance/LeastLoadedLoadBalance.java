@@ -0,0 +1,35 @@
+package cn.gitlab.virtualcry.reactor.bus.support.loadBalance;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Least-loaded strategy, according to the power of two choices to get item: two items are sampled at random and the
+ * one with fewer {@link LoadAware#getPendingCount() pending tasks} is taken. Unlike looking for the least loaded of
+ * all items, sampling costs the same for any number of items and doesn't send every publisher to the same idle item
+ * at once, while still keeping away from the busy ones. Items that are not {@link LoadAware} count as idle.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ */
+final class LeastLoadedLoadBalance implements LoadBalance {
+
+    @Override
+    public <T> T get(List<T> items, Object... args) {
+        if (items == null || items.isEmpty())
+            return null;
+        int size = items.size();
+        if (size == 1)
+            return items.get(0);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        // a second index other than the first one.
+        int second = (first + 1 + random.nextInt(size - 1)) % size;
+        T a = items.get(first), b = items.get(second);
+        return pendingCount(b) < pendingCount(a) ? b : a;
+    }
+
+    private static long pendingCount(Object item) {
+        return item instanceof LoadAware ? ((LoadAware) item).getPendingCount() : 0;
+    }
+}
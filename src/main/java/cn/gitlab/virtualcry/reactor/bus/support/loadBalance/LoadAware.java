@@ -0,0 +1,19 @@
+package cn.gitlab.virtualcry.reactor.bus.support.loadBalance;
+
+/**
+ * An item that tells how busy it is, so load balances can prefer the less busy items.
+ *
+ * @author VirtualCry
+ * @since 3.2.2
+ *
+ * @see LoadBalanceStrategy#LEAST_LOADED
+ */
+public interface LoadAware {
+
+    /**
+     * Get the number of pending tasks of this item, which may be off while the item is running.
+     *
+     * @return The number of pending tasks
+     */
+    long getPendingCount();
+}
@@ -5,5 +5,20 @@ package cn.gitlab.virtualcry.reactor.bus.support.loadBalance;
  * @since 3.2.2
  */
 public enum LoadBalanceStrategy {
-    ROUND_ROBIN, RANDOM
+    ROUND_ROBIN, RANDOM,
+
+    /**
+     * Always get the same item for the same key, through a consistent-hash ring over the items.
+     * <p/>
+     * Dispatching the events of a key on the same dispatcher keeps them in order up to the router. Consumers only
+     * receive them in order when the router delivers them in order too, that is with a serial event consumer scheduler
+     * such as {@link reactor.core.scheduler.Schedulers#newSingle(String)}; the default elastic scheduler may run the
+     * deliveries of consecutive events at the same time.
+     */
+    KEY_HASH,
+
+    /**
+     * Get the less loaded of two items sampled at random, going by the pending tasks of {@link LoadAware} items.
+     */
+    LEAST_LOADED
 }
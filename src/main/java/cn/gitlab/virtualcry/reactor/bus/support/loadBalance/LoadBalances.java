@@ -17,6 +17,10 @@ public abstract class LoadBalances {
                 return new RoundRobinLoadBalance();
             case RANDOM:
                 return new RandomLoadBalance();
+            case KEY_HASH:
+                return new KeyHashLoadBalance();
+            case LEAST_LOADED:
+                return new LeastLoadedLoadBalance();
             default:
                 return new NonLoadBalance();
         }
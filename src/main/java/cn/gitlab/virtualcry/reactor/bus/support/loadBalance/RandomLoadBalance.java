@@ -1,7 +1,7 @@
 package cn.gitlab.virtualcry.reactor.bus.support.loadBalance;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Random strategy, according to the random number to get item.
@@ -16,6 +16,6 @@ final class RandomLoadBalance implements LoadBalance {
         if (items == null || items.isEmpty())
             return null;
         else
-            return items.get(new Random().nextInt(items.size()));
+            return items.get(ThreadLocalRandom.current().nextInt(items.size()));
     }
 }
@@ -0,0 +1,102 @@
+package cn.gitlab.virtualcry.reactor.bus.test;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.support.IdGenerators;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link Event}
+ *
+ * @see Event#getId()
+ * @see Event#setIdGenerator(Supplier)
+ * @see IdGenerators#monotonic()
+ *
+ * @author VirtualCry
+ */
+public class EventTest {
+
+    @After
+    public void reset() {
+        Event.setIdGenerator(IdGenerators.random());
+    }
+
+
+    @Test
+    public void testId() throws Exception {
+
+        // the id is only generated on first access.
+        AtomicInteger generated = new AtomicInteger();
+        Event.setIdGenerator(() -> {
+            generated.incrementAndGet();
+            return UUID.randomUUID();
+        });
+        Event<String> ev = Event.wrap("Hello World!");
+        assertEquals(0, generated.get());
+
+        // and stays the same afterwards.
+        UUID id = ev.getId();
+        assertSame(id, ev.getId());
+        assertEquals(1, generated.get());
+
+        // threads racing for the first access all get the same id.
+        Event<String> raced = Event.wrap("Hello World!");
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ids.add(raced.getId());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, ids.size());
+        assertEquals(ids.iterator().next(), raced.getId());
+    }
+
+
+    @Test
+    public void testMonotonicId() throws Exception {
+
+        // the ids of a generator keep increasing.
+        Supplier<UUID> generator = IdGenerators.monotonic();
+        UUID previous = generator.get();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = generator.get();
+            assertEquals(previous.getMostSignificantBits(), id.getMostSignificantBits());
+            assertTrue(id.getLeastSignificantBits() > previous.getLeastSignificantBits());
+            assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+
+        // the ids of another generator are told apart.
+        assertNotEquals(previous.getMostSignificantBits(), IdGenerators.monotonic().get().getMostSignificantBits());
+
+        // events take their ids from the generator, in the order their ids are first read.
+        Event.setIdGenerator(IdGenerators.monotonic());
+        Event<String> first = Event.wrap("first"), second = Event.wrap("second");
+        UUID firstId = first.getId();
+        assertTrue(second.getId().compareTo(firstId) > 0);
+    }
+}
@@ -0,0 +1,138 @@
+package cn.gitlab.virtualcry.reactor.bus.test;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.EventBus;
+import cn.gitlab.virtualcry.reactor.bus.selector.HeaderResolver;
+import cn.gitlab.virtualcry.reactor.bus.selector.RegexSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import org.junit.Test;
+import reactor.util.function.Tuple2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link Event.Headers}
+ *
+ * @see Event.Headers#readOnly()
+ * @see EventBus#on(Selector, java.util.function.Consumer)
+ *
+ * @author VirtualCry
+ */
+public class HeadersTest {
+
+    @Test
+    public void test() throws Exception {
+
+        // set.
+        Event.Headers headers = new Event.Headers(Collections.singletonMap("Content-Type", "text/plain"));
+        headers.set("X-Count", 1).setOrigin("origin");
+
+        // names are case-insensitive.
+        assertEquals("text/plain", headers.get("content-type"));
+        assertEquals(1, (int) headers.get("x-count"));
+        assertEquals("origin", headers.getOrigin());
+        assertTrue(headers.contains("X-COUNT"));
+        assertEquals("text/plain", headers.asMap().get("CONTENT-TYPE"));
+
+        // replace and remove.
+        headers.set("x-count", 2).set("Content-Type", null);
+        assertEquals(2, (int) headers.get("X-Count"));
+        assertFalse(headers.contains("Content-Type"));
+        assertNull(headers.get("Content-Type"));
+
+        // iterate.
+        int count = 0;
+        for (Tuple2<String, Object> header : headers) {
+            assertEquals(header.getT2(), headers.get(header.getT1()));
+            count++;
+        }
+        assertEquals(2, count);
+
+        // read-only.
+        Event.Headers readOnly = headers.readOnly();
+        headers.set("x-count", 3);
+        assertEquals(2, (int) readOnly.get("x-count"));
+    }
+
+    @Test
+    public void testResolveLazily() throws Exception {
+
+        // create event bus and a selector counting its header resolutions.
+        EventBus bus = EventBus.config().get();
+        AtomicInteger resolutions = new AtomicInteger();
+        Semaphore semaphore = new Semaphore(0);
+        Selector selector = new RegexSelector("order\\.(.+)") {
+            private final HeaderResolver resolver = key -> {
+                resolutions.incrementAndGet();
+                return super.getHeaderResolver().resolve(key);
+            };
+
+            @Override
+            public HeaderResolver getHeaderResolver() {
+                return resolver;
+            }
+        };
+
+        // the headers are not resolved for a consumer that doesn't read them.
+        bus.on(selector, ev -> semaphore.release());
+        bus.notify("order.created", Event.wrap("Hello World!"));
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(0, resolutions.get());
+
+        // the headers are resolved once per event.
+        for (int i = 0; i < 2; i++) {
+            bus.on(selector, ev -> {
+                assertEquals("order.created", ev.getHeaders().get("group0"));
+                semaphore.release();
+            });
+        }
+        bus.notify("order.created", Event.wrap("Hello World!"));
+        assertTrue(semaphore.tryAcquire(3, 5, TimeUnit.SECONDS));
+        assertEquals(1, resolutions.get());
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+
+        // serialize the headers of an event before any consumer read them.
+        EventBus bus = EventBus.config().get();
+        CompletableFuture<byte[]> serialized = new CompletableFuture<>();
+        bus.on(new RegexSelector("order\\.(.+)"), ev -> {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(ev.getHeaders());
+                }
+                serialized.complete(bytes.toByteArray());
+            } catch (Exception e) {
+                serialized.completeExceptionally(e);
+            }
+        });
+        bus.notify("order.created", Event.wrap("Hello World!"));
+
+        // the pending headers were resolved into the serialized form.
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(serialized.get(5, TimeUnit.SECONDS)))) {
+            Event.Headers headers = (Event.Headers) in.readObject();
+            assertEquals("order.created", headers.get("group0"));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() throws Exception {
+        new Event.Headers().readOnly().set("x-count", 1);
+    }
+}
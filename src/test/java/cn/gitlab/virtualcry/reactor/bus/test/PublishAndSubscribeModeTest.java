@@ -2,19 +2,37 @@ package cn.gitlab.virtualcry.reactor.bus.test;
 
 import cn.gitlab.virtualcry.reactor.bus.Event;
 import cn.gitlab.virtualcry.reactor.bus.EventBus;
+import cn.gitlab.virtualcry.reactor.bus.PooledEvent;
 import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalanceStrategy;
 import org.junit.Before;
 import org.junit.Test;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.concurrent.WaitStrategy;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.$;
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.R;
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.predicate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test for {@link EventBus}
@@ -23,6 +41,7 @@ import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.$;
  * @see EventBus#notify(Publisher, Object)
  * @see EventBus#notify(Object, Event)
  * @see EventBus#accept(Event)
+ * @see EventBus#borrowEvent()
  *
  * @author VirtualCry
  */
@@ -71,4 +90,153 @@ public class PublishAndSubscribeModeTest {
         // sleep.
         TimeUnit.SECONDS.sleep(1);
     }
+
+
+    @Test
+    public void testBorrowEvent() throws Exception {
+
+        // an event without subscribers returns to the pool once the dispatcher selected its key.
+        PooledEvent<String> ev = bus.borrowEvent();
+        bus.notify("none.sink", ev.setData("Hello World!"));
+        assertSame(ev, awaitReturned(ev));
+        assertNull(ev.getData());
+
+        // an event returns to the pool once every consumer returned.
+        bus.on($(notifyKey), e -> semaphore.release());
+        bus.notify(notifyKey, ev.setData("Hello World!"));
+        semaphore.acquire(2);
+        assertSame(ev, awaitReturned(ev));
+    }
+
+
+    @Test
+    public void testConsumerNotFound() throws Exception {
+
+        Semaphore notFound = new Semaphore(0);
+        EventBus bus = EventBus.config().consumerNotFoundHandler(key -> notFound.release()).get();
+        Set<Object> keys = ConcurrentHashMap.newKeySet();
+        bus.on(predicate(keys::contains), ev -> semaphore.release());
+
+        // the dispatcher selects every key and reports a miss as not found, each time.
+        for (int i = 0; i < 2; i++) {
+            bus.notify("none.sink", Event.wrap("Hello World!"));
+            assertTrue(notFound.tryAcquire(5, TimeUnit.SECONDS));
+        }
+
+        // so a selector over mutable state that starts matching the key gets the next event.
+        keys.add("none.sink");
+        bus.notify("none.sink", Event.wrap("Hello World!"));
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+
+        // when misses are cached, a known miss is reported once more and dropped without being dispatched.
+        EventBus cachingBus = EventBus.config().cacheMisses().consumerNotFoundHandler(key -> notFound.release()).get();
+        cachingBus.notify("none.sink", Event.wrap("Hello World!"));
+        assertTrue(notFound.tryAcquire(5, TimeUnit.SECONDS));
+        PooledEvent<String> ev = cachingBus.borrowEvent();
+        cachingBus.notify("none.sink", ev.setData("Hello World!"));
+        assertTrue(notFound.tryAcquire());
+        assertSame(ev, cachingBus.borrowEvent());
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(0, notFound.availablePermits());
+    }
+
+
+    @Test
+    public void testKeyHashOrder() throws Exception {
+
+        // events of a key go through the same dispatcher, and a serial scheduler delivers them in order.
+        Scheduler scheduler = Schedulers.newSingle("ordered");
+        EventBus bus = EventBus.config()
+                .dispatcherCount(4)
+                .loadBalanceStrategy(LoadBalanceStrategy.KEY_HASH)
+                .eventConsumerScheduler(scheduler)
+                .get();
+        int keys = 8, events = 500;
+        CountDownLatch latch = new CountDownLatch(keys * events);
+        Map<Object, List<Integer>> received = new ConcurrentHashMap<>();
+        bus.on(R("order\\..+"), ev -> {
+            received.computeIfAbsent(ev.getKey(), key -> new CopyOnWriteArrayList<>()).add((Integer) ev.getData());
+            latch.countDown();
+        });
+
+        // notify.
+        try {
+            for (int i = 0; i < events; i++) {
+                for (int k = 0; k < keys; k++)
+                    bus.notify("order." + k, Event.wrap(i));
+            }
+
+            // block.
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            scheduler.dispose();
+        }
+        for (List<Integer> sequence : received.values()) {
+            for (int i = 0; i < events; i++)
+                assertEquals(i, (int) sequence.get(i));
+        }
+    }
+
+
+    @Test
+    public void testMpscDispatcher() throws Exception {
+
+        // a small queue, so publishers have to wait for the dispatcher to make room.
+        EventBus mpscBus = EventBus.config().mpscDispatcher(16).dispatcherCount(2).get();
+        int producers = 4, events = 10_000;
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(producers * events);
+        mpscBus.on($(notifyKey), ev -> {
+            received.incrementAndGet();
+            latch.countDown();
+        });
+
+        // notify from several threads at once.
+        for (int i = 0; i < producers; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < events; j++)
+                    mpscBus.notify(notifyKey, Event.wrap(j));
+            }).start();
+        }
+
+        // block.
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(producers * events, received.get());
+    }
+
+
+    @Test
+    public void testRingBufferDispatcher() throws Exception {
+
+        for (WaitStrategy waitStrategy : new WaitStrategy[] {
+                WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.parking(), WaitStrategy.liteBlocking() }) {
+            // a small ring, so publishers have to wait for the dispatcher to make room.
+            EventBus ringBus = EventBus.config().ringBufferDispatcher(16, waitStrategy).dispatcherCount(1).get();
+            int producers = 4, events = 2_500;
+            CountDownLatch latch = new CountDownLatch(producers * events);
+            ringBus.on($(notifyKey), ev -> latch.countDown());
+
+            // notify from several threads at once.
+            for (int i = 0; i < producers; i++) {
+                new Thread(() -> {
+                    for (int j = 0; j < events; j++)
+                        ringBus.notify(notifyKey, Event.wrap(j));
+                }).start();
+            }
+
+            // block.
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            ringBus.getDispatcher().onCancel();
+        }
+    }
+
+
+    private PooledEvent<String> awaitReturned(PooledEvent<String> ev) throws InterruptedException {
+        PooledEvent<String> borrowed = bus.borrowEvent();
+        for (int i = 0; i < 100 && borrowed != ev; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            borrowed = bus.borrowEvent();
+        }
+        return borrowed;
+    }
 }
@@ -5,16 +5,28 @@ import cn.gitlab.virtualcry.reactor.bus.EventBus;
 import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
 import org.junit.Before;
 import org.junit.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.$;
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.predicate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test for {@link EventBus}
@@ -24,6 +36,8 @@ import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.$;
  * @see EventBus#receive(Selector, Function)
  * @see EventBus#sendAndReceive(Object, Event, Consumer)
  * @see EventBus#sendAndReceive(Object, Supplier, Consumer)
+ * @see EventBus#request(Object, Event, Duration)
+ * @see EventBus#scatterGather(Object, Event, Duration)
  * @see EventBus#on(Selector, Consumer)
  *
  * @author VirtualCry
@@ -82,4 +96,153 @@ public class RequestAndResponseModeTest {
         // sleep.
         TimeUnit.SECONDS.sleep(1);
     }
+
+
+    @Test
+    public void testReplyKey() throws Exception {
+
+        // create event bus, whose replier keeps the reply key of the last request.
+        Semaphore errors = new Semaphore(0);
+        EventBus bus = EventBus.config().dispatchErrorHandler(t -> errors.release()).get();
+        AtomicReference<Object> replyTo = new AtomicReference<>();
+        bus.receive($(notifyKey), ev -> {
+            replyTo.set(ev.getReplyTo());
+            return ev;
+        });
+
+        // the reply reaches the waiting consumer.
+        AtomicInteger replies = new AtomicInteger();
+        bus.sendAndReceive(notifyKey, Event.wrap("Hello World!"), ev -> {
+            replies.incrementAndGet();
+            semaphore.release();
+        });
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+
+        // a second reply to the same key is no longer correlated, it is dispatched like any other event.
+        EventBus.ReplyKey replyKey = (EventBus.ReplyKey) replyTo.get();
+        bus.on($(replyKey), ev -> semaphore.release());
+        bus.notify(replyKey, Event.wrap("Hello again!"));
+        assertTrue(semaphore.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(1, replies.get());
+
+        // an error in the reply consumer goes to the dispatch error handler.
+        bus.sendAndReceive(notifyKey, Event.wrap("Hello World!"), ev -> {
+            throw new IllegalStateException("Reply failed.");
+        });
+        assertTrue(errors.tryAcquire(5, TimeUnit.SECONDS));
+    }
+
+
+    @Test
+    public void testRequest() throws Exception {
+
+        // request.
+        StepVerifier.create(bus.request(notifyKey, Event.wrap("Hello World!"), Duration.ofSeconds(5)))
+                .assertNext(ev -> logger.info("3. Reply it - {}", ev))
+                .verifyComplete();
+
+        // request without replier.
+        StepVerifier.create(bus.request("none.sink", Event.wrap("Hello World!"), Duration.ofMillis(100)))
+                .verifyError(TimeoutException.class);
+    }
+
+
+    @Test
+    public void testScatterGather() throws Exception {
+
+        // register shards.
+        for (int i = 0; i < 3; i++) {
+            String shard = "shard" + i;
+            bus.receive($("query.sink"), ev -> shard);
+        }
+        // a plain consumer does not reply, so it is not waited for.
+        bus.on($("query.sink"), ev -> logger.info("4. Listen it - {}", ev));
+
+        // scatter and gather all replies.
+        StepVerifier.create(bus.scatterGather("query.sink", Event.wrap("Hello World!"), Duration.ofSeconds(5)))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        // scatter without receiver.
+        StepVerifier.create(bus.scatterGather("none.sink", Event.wrap("Hello World!"), Duration.ofSeconds(5)))
+                .verifyComplete();
+
+        // the window closes before the slow receiver replies.
+        bus.receive($("slow.sink"), ev -> ev);
+        bus.receive($("slow.sink"), ev -> {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            return ev;
+        });
+        StepVerifier.create(bus.scatterGather("slow.sink", Event.wrap("Hello World!"), Duration.ofMillis(200)))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+
+    @Test
+    public void testScatterGatherConcurrently() throws Exception {
+
+        // replies arrive on several threads at once.
+        Scheduler scheduler = Schedulers.newParallel("gather", 4);
+        EventBus bus = EventBus.config().eventConsumerScheduler(scheduler).get();
+        int receivers = 8;
+        for (int i = 0; i < receivers; i++)
+            bus.receive($("query.sink"), ev -> ev);
+
+        // no reply is lost to another thread completing the gather.
+        try {
+            for (int i = 0; i < 500; i++) {
+                StepVerifier.create(bus.scatterGather("query.sink", Event.wrap(i), Duration.ofSeconds(5)))
+                        .expectNextCount(receivers)
+                        .verifyComplete();
+            }
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+
+    @Test
+    public void testScatterGatherSelectsOnce() throws Exception {
+
+        // a scanned selector counts the lookups of its key.
+        EventBus bus = EventBus.config().indexedRegistry().get();
+        AtomicInteger lookups = new AtomicInteger();
+        bus.receive(predicate(key -> "count.sink".equals(key) && lookups.incrementAndGet() > 0), ev -> ev);
+        bus.receive($("count.sink"), ev -> ev);
+
+        // the receivers are counted from the selection the event is routed by.
+        StepVerifier.create(bus.scatterGather("count.sink", Event.wrap("Hello World!"), Duration.ofSeconds(5)))
+                .expectNextCount(2)
+                .verifyComplete();
+        assertEquals(1, lookups.get());
+    }
+
+
+    @Test
+    public void testScatterGatherSlowSubscriber() throws Exception {
+
+        // the subscriber is still busy with a reply when the window closes.
+        bus.receive($("busy.sink"), ev -> ev);
+        CountDownLatch received = new CountDownLatch(1), release = new CountDownLatch(1);
+        bus.scatterGather("busy.sink", Event.wrap("Hello World!"), Duration.ofMillis(100))
+                .subscribe(reply -> {
+                    received.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+
+        // which does not hold up the timeouts of other requests.
+        try {
+            StepVerifier.create(bus.request("none.sink", Event.wrap("Hello World!"), Duration.ofMillis(200)))
+                    .expectError(TimeoutException.class)
+                    .verify(Duration.ofSeconds(5));
+        } finally {
+            release.countDown();
+        }
+    }
 }
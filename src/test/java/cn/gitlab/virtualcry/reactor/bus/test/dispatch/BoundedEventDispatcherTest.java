@@ -0,0 +1,234 @@
+package cn.gitlab.virtualcry.reactor.bus.test.dispatch;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.EventBus;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.BoundedEventDispatcher;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.DispatcherSubscriber;
+import cn.gitlab.virtualcry.reactor.bus.dispatch.OverflowPolicy;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.FluxProcessor;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for {@link BoundedEventDispatcher}
+ *
+ * @see OverflowPolicy
+ *
+ * @author VirtualCry
+ */
+public class BoundedEventDispatcherTest {
+    private static final int                        CAPACITY = 4;
+
+    private CountDownLatch                          entered;
+    private CountDownLatch                          blocked;
+    private List<Object>                            received;
+
+
+    @Before
+    public void initialize() {
+        this.entered = new CountDownLatch(1);
+        this.blocked = new CountDownLatch(1);
+        this.received = new CopyOnWriteArrayList<>();
+    }
+
+
+    @Test
+    public void testDropNewest() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.DROP_NEWEST, Duration.ZERO);
+
+        // the queue takes as many events as it holds, the rest overflows.
+        publish(dispatcher, 20);
+        assertEquals(16, dispatcher.getOverflowCount());
+        assertEquals(16, dispatcher.getDroppedCount());
+        assertEquals(1 + CAPACITY, dispatcher.getPendingCount());
+
+        // the first events get through.
+        awaitReceived(1 + CAPACITY);
+        assertEquals(Arrays.asList(-1, 0, 1, 2, 3), received);
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.DROP_OLDEST, Duration.ZERO);
+
+        // the last events get through.
+        publish(dispatcher, 20);
+        assertEquals(16, dispatcher.getDroppedCount());
+        awaitReceived(1 + CAPACITY);
+        assertEquals(Arrays.asList(-1, 16, 17, 18, 19), received);
+    }
+
+    @Test
+    public void testConflate() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.CONFLATE, Duration.ZERO);
+
+        // the queued events are replaced by the newer ones of the same key, in place.
+        for (int i = 0; i < 20; i++)
+            dispatcher.onNext(Event.wrap(i).setKey("key." + i % CAPACITY));
+        assertEquals(16, dispatcher.getDroppedCount());
+        awaitReceived(1 + CAPACITY);
+        assertEquals(Arrays.asList(-1, 16, 17, 18, 19), received);
+    }
+
+    @Test
+    public void testConflateWithoutSameKey() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.CONFLATE, Duration.ZERO);
+
+        // without a queued event of the same key, the oldest one is dropped.
+        publish(dispatcher, CAPACITY);
+        dispatcher.onNext(Event.wrap(4).setKey("key.4"));
+        // the newer event of a key still queued replaces it.
+        dispatcher.onNext(Event.wrap(5).setKey("key.4"));
+        // the key of a dropped event is no longer queued.
+        dispatcher.onNext(Event.wrap(6).setKey("key.0"));
+        assertEquals(3, dispatcher.getDroppedCount());
+        awaitReceived(1 + CAPACITY);
+        assertEquals(Arrays.asList(-1, 2, 3, 5, 6), received);
+    }
+
+    @Test
+    public void testError() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.ERROR, Duration.ZERO);
+
+        publish(dispatcher, CAPACITY);
+        try {
+            dispatcher.onNext(Event.wrap(CAPACITY).setKey("key"));
+            fail("Overflow was not signalled.");
+        } catch (IllegalStateException e) {
+            assertTrue(Exceptions.isOverflow(e));
+        }
+        assertEquals(1, dispatcher.getDroppedCount());
+
+        // the queued events still get through.
+        awaitReceived(1 + CAPACITY);
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.BLOCK, Duration.ofMillis(50));
+
+        // a full queue fails the publisher once the timeout elapsed.
+        publish(dispatcher, CAPACITY);
+        long start = System.nanoTime();
+        try {
+            dispatcher.onNext(Event.wrap(CAPACITY).setKey("key"));
+            fail("Overflow was not signalled.");
+        } catch (IllegalStateException e) {
+            assertTrue(Exceptions.isOverflow(e));
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void testBlockUntilRoom() throws Exception {
+        BoundedEventDispatcher dispatcher = start(OverflowPolicy.BLOCK, Duration.ofSeconds(10));
+
+        // the publisher waits until the dispatcher made room.
+        new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            blocked.countDown();
+        }).start();
+        publish(dispatcher, 20);
+        awaitReceived(1 + 20);
+        assertTrue(dispatcher.getOverflowCount() > 0);
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+
+    @Test
+    public void testDispatcherInstances() throws Exception {
+        List<FluxProcessor<Event<?>, Event<?>>> dispatchers =
+                Collections.singletonList(UnicastProcessor.create());
+
+        // the bounds of the built-in dispatchers cannot apply to dispatcher instances.
+        try {
+            EventBus.config().dispatchers(dispatchers).overflowPolicy(OverflowPolicy.DROP_NEWEST).get();
+            fail("Overflow policy was not rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            EventBus.config().dispatchers(dispatchers).dispatcherCapacity(CAPACITY).get();
+            fail("Dispatcher capacity was not rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        // the instances alone are used as they are.
+        assertNotNull(EventBus.config().dispatchers(dispatchers).get());
+    }
+
+
+    private BoundedEventDispatcher start(OverflowPolicy overflowPolicy, Duration blockTimeout) throws Exception {
+        BoundedEventDispatcher dispatcher = new BoundedEventDispatcher(
+                CAPACITY, overflowPolicy, blockTimeout, new BlockingSubscriber());
+        // hold the dispatcher thread on a first event.
+        dispatcher.onNext(Event.wrap(-1).setKey("first"));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        return dispatcher;
+    }
+
+    private void publish(BoundedEventDispatcher dispatcher, int count) {
+        for (int i = 0; i < count; i++)
+            dispatcher.onNext(Event.wrap(i).setKey("key." + i));
+    }
+
+    private void awaitReceived(int count) throws Exception {
+        blocked.countDown();
+        for (int i = 0; i < 1_000 && received.size() < count; i++)
+            TimeUnit.MILLISECONDS.sleep(10);
+        assertEquals(count, received.size());
+    }
+
+
+    /**
+     * Holds the dispatcher thread until the test lets it go.
+     */
+    private class BlockingSubscriber implements DispatcherSubscriber<Event<?>> {
+
+        @Override
+        public void doOnNext(Event<?> ev) {
+            entered.countDown();
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(ev.getData());
+        }
+
+        @Override
+        public void doOnError(Throwable t) {
+        }
+
+        @Override
+        public void doOnSubscribe(Subscription s) {
+        }
+
+        @Override
+        public void doOnComplete() {
+        }
+
+        @Override
+        public void doOnCancel() {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cn.gitlab.virtualcry.reactor.bus.test.loadBalance;
+
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalance;
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalanceStrategy;
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalances;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link LoadBalanceStrategy#KEY_HASH}
+ *
+ * @author VirtualCry
+ */
+public class KeyHashLoadBalanceTest {
+    private LoadBalance                             loadBalance;
+    private List<Object>                            items;
+
+
+    @Before
+    public void initialize() {
+        this.loadBalance = LoadBalances.create(LoadBalanceStrategy.KEY_HASH);
+        this.items = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            items.add(new Object());
+    }
+
+
+    @Test
+    public void test() {
+
+        // the same key always gets the same item.
+        for (int i = 0; i < 1_000; i++) {
+            String key = "job.sink." + i;
+            assertSame(loadBalance.get(items, key), loadBalance.get(items, key));
+        }
+
+        // every item gets a share of the keys.
+        int[] counts = new int[items.size()];
+        for (int i = 0; i < 10_000; i++)
+            counts[items.indexOf(loadBalance.get(items, "job.sink." + i))]++;
+        for (int count : counts)
+            assertTrue("Unbalanced share: " + count, count > 1_500 && count < 3_500);
+    }
+
+    @Test
+    public void testRemap() {
+
+        List<Object> before = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            before.add(loadBalance.get(items, (long) i));
+
+        // adding an item only moves keys to the new item.
+        List<Object> grown = new ArrayList<>(items);
+        grown.add(new Object());
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Object item = loadBalance.get(grown, (long) i);
+            if (item != before.get(i)) {
+                assertSame(grown.get(4), item);
+                moved++;
+            }
+        }
+        assertTrue("Moved keys: " + moved, moved > 1_000 && moved < 3_000);
+
+        // removing it moves them back.
+        for (int i = 0; i < 10_000; i++)
+            assertSame(before.get(i), loadBalance.get(items, (long) i));
+    }
+}
@@ -0,0 +1,53 @@
+package cn.gitlab.virtualcry.reactor.bus.test.loadBalance;
+
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadAware;
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalance;
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalanceStrategy;
+import cn.gitlab.virtualcry.reactor.bus.support.loadBalance.LoadBalances;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link LoadBalanceStrategy#LEAST_LOADED}
+ *
+ * @author VirtualCry
+ */
+public class LeastLoadedLoadBalanceTest {
+    private LoadBalance                             loadBalance;
+
+
+    @Before
+    public void initialize() {
+        this.loadBalance = LoadBalances.create(LoadBalanceStrategy.LEAST_LOADED);
+    }
+
+
+    @Test
+    public void test() {
+
+        LoadAware idle = () -> 0, busy = () -> 100, busiest = () -> 1_000;
+
+        // of two items, the less loaded one is always taken.
+        List<LoadAware> items = Arrays.asList(busy, idle);
+        for (int i = 0; i < 1_000; i++)
+            assertSame(idle, loadBalance.get(items, "job.sink"));
+
+        // of more items, the most loaded one is never taken, and the others share the rest.
+        items = Arrays.asList(busiest, busy, idle);
+        int idleCount = 0;
+        for (int i = 0; i < 3_000; i++) {
+            LoadAware item = loadBalance.get(items, "job.sink");
+            assertNotSame(busiest, item);
+            if (item == idle)
+                idleCount++;
+        }
+        assertTrue("Idle item taken: " + idleCount, idleCount > 1_500);
+    }
+}
@@ -0,0 +1,210 @@
+package cn.gitlab.virtualcry.reactor.bus.test.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.registry.CachingRegistry;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registries;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import cn.gitlab.virtualcry.reactor.bus.registry.TransientKey;
+import cn.gitlab.virtualcry.reactor.bus.selector.HeaderResolver;
+import cn.gitlab.virtualcry.reactor.bus.selector.Selector;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.$;
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.R;
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.longKey;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link CachingRegistry}
+ *
+ * @author VirtualCry
+ */
+public class CachingRegistryTest {
+
+    private Registry<Object, String>                registry;
+    private AtomicInteger                           registered;
+    private AtomicInteger                           unregistered;
+
+
+    @Before
+    public void initialize() {
+        this.registered = new AtomicInteger();
+        this.unregistered = new AtomicInteger();
+        this.registry = Registries.create(true, true, null,
+                registration -> registered.incrementAndGet(),
+                registration -> unregistered.incrementAndGet());
+    }
+
+
+    @Test
+    public void test() throws Exception {
+
+        // register.
+        List<Registration<Object, String>> registrations = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            registrations.add(registry.register($("key" + i), "object" + i));
+        registry.register(R("key.*"), "regex");
+        assertEquals(2, registry.select("key1").size());
+
+        // cancel, the freed slots are reused.
+        for (int i = 0; i < 50; i++)
+            registrations.get(i).cancel();
+        assertEquals(1, registry.select("key1").size());
+        registry.register($("key1"), "again");
+        assertEquals(2, registry.select("key1").size());
+        assertEquals(52, countRegistrations());
+
+        // register and cancel in batch.
+        List<Registration<Object, String>> batch = registry.registerAll(Arrays.asList(
+                Tuples.of($("batch"), "first"),
+                Tuples.of($("batch"), "second")
+        ));
+        assertEquals(2, registry.select("batch").size());
+        registry.cancelAll(batch);
+        assertFalse(registry.respondsToKey("batch"));
+
+        // unregister.
+        assertTrue(registry.unregister("key99"));
+        assertFalse(registry.respondsToKey("key99"));
+        assertEquals(1, registry.select("key1").size());
+
+        // clear.
+        registry.clear();
+        assertEquals(0, countRegistrations());
+        assertEquals(registered.get(), unregistered.get());
+    }
+
+
+    @Test
+    public void testLongKey() throws Exception {
+
+        // register.
+        Registration<Object, String> registration = registry.register(longKey(42), "long");
+        registry.register($(42L), "object");
+
+        // select, with a boxed long selector that forces the boxed path.
+        assertEquals(2, registry.selectLong(42L).size());
+        registry.cancelAll(registry.select((Object) 42L).subList(1, 2));
+        assertEquals(1, registry.selectLong(42L).size());
+        assertTrue(registry.respondsToLongKey(42L));
+
+        // cancel.
+        registration.cancel();
+        assertFalse(registry.respondsToLongKey(42L));
+    }
+
+
+    @Test
+    public void testInvalidation() throws Exception {
+
+        // a cached selection is dropped when a matching selector is registered or cancelled.
+        registry.register($("key"), "object");
+        assertEquals(1, registry.select("key").size());
+        Registration<Object, String> registration = registry.register(R("k.*"), "regex");
+        assertEquals(2, registry.select("key").size());
+        registration.cancel();
+        assertEquals(1, registry.select("key").size());
+
+        // so is a recorded miss.
+        assertTrue(registry.select("missing").isEmpty());
+        assertTrue(registry.isKnownMiss("missing"));
+        registration = registry.register(R("miss.*"), "regex");
+        assertFalse(registry.isKnownMiss("missing"));
+        assertEquals(1, registry.select("missing").size());
+        registration.cancel();
+        assertTrue(registry.select("missing").isEmpty());
+    }
+
+
+    @Test
+    public void testMisses() throws Exception {
+
+        // misses are only remembered when asked to.
+        Registry<Object, String> registry = Registries.create(true, null, null, null);
+        assertTrue(registry.select("missing").isEmpty());
+        assertFalse(registry.isKnownMiss("missing"));
+
+        // and never for transient keys.
+        TransientKey key = new TransientKey() {
+        };
+        assertTrue(this.registry.select(key).isEmpty());
+        assertFalse(this.registry.isKnownMiss(key));
+    }
+
+
+    @Test
+    public void testConcurrentRegister() throws Exception {
+
+        // a selection that found nothing, and one that found a match, are not cached once a registration raced them.
+        assertRegistrationSeen(false);
+        registry.clear();
+        assertRegistrationSeen(true);
+    }
+
+
+    private int countRegistrations() {
+        int count = 0;
+        for (Registration<Object, ? extends String> ignored : registry)
+            count++;
+        return count;
+    }
+
+
+    private void assertRegistrationSeen(boolean matched) throws Exception {
+
+        // a selector that holds the selection of the hot key half-way through the scan.
+        CountDownLatch entered = new CountDownLatch(1), proceed = new CountDownLatch(1);
+        Selector<Object> gate = new Selector<Object>() {
+            @Override
+            public Object getObject() {
+                return "gate";
+            }
+
+            @Override
+            public boolean matches(Object key) {
+                if ("hot".equals(key) && entered.getCount() > 0) {
+                    entered.countDown();
+                    try {
+                        proceed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public HeaderResolver getHeaderResolver() {
+                return null;
+            }
+        };
+        // free the slot ahead of the gate, so the registration below lands where the held scan already passed.
+        Registration<Object, String> placeholder = registry.register($("placeholder"), "placeholder");
+        registry.register(gate, "gate");
+        if (matched)
+            registry.register($("hot"), "first");
+        placeholder.cancel();
+
+        // select while a matching selector is registered.
+        Thread reader = new Thread(() -> registry.select("hot"));
+        reader.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        registry.register($("hot"), "hot");
+        proceed.countDown();
+        reader.join();
+
+        // the stale selection of the reader was not cached.
+        assertEquals(matched ? 2 : 1, registry.select("hot").size());
+    }
+}
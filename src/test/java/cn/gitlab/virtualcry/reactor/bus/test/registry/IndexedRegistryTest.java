@@ -0,0 +1,281 @@
+package cn.gitlab.virtualcry.reactor.bus.test.registry;
+
+import cn.gitlab.virtualcry.reactor.bus.registry.IndexedRegistry;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registries;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link IndexedRegistry}
+ *
+ * @author VirtualCry
+ */
+public class IndexedRegistryTest {
+
+    private Registry<Object, String>                registry;
+
+
+    @Before
+    public void initialize() {
+        this.registry = Registries.createIndexed(null, null, null);
+    }
+
+
+    @Test
+    public void test() throws Exception {
+
+        // register.
+        registry.register($("topic"), "object");
+        registry.register(setMembership(new HashSet<>(Arrays.asList("topic", "other"))), "set");
+        registry.register(R("top.*"), "regex");
+        registry.register(U("/topic/{name}"), "uri");
+        registry.register(U("/topic/**"), "uri splat");
+        registry.register(U("tcp://*:3000/topic"), "uri any host");
+        registry.register(U("tcp://localhost/*"), "uri any path");
+        registry.register(U("tcp://localhost:3000/topic#first"), "uri fragment");
+        registry.register(T(Number.class), "class");
+        registry.register(T(Exception.class), "error");
+        registry.register(topic("orders.*.created"), "topic any region");
+        registry.register(topic("orders.#"), "topic all orders");
+        registry.register(topic("#.created"), "topic all created");
+        Registration<Object, String> registration = registry.register($("topic"), "cancelled");
+
+        // cancel.
+        registration.cancel();
+
+        // select.
+        assertEquals(3, registry.select("topic").size());
+        assertEquals(1, registry.select("other").size());
+        assertEquals(1, registry.select("topical").size());
+        assertTrue(registry.select("none").isEmpty());
+        assertEquals(2, registry.select("/topic/test").size());
+        assertEquals(1, registry.select("/topic/test/more").size());
+        assertEquals(2, registry.select("tcp://localhost:3000/topic?param=value").size());
+        assertEquals(3, registry.select("tcp://localhost:3000/topic#first").size());
+        assertEquals(1, registry.select("tcp://remote:3000/topic").size());
+        assertTrue(registry.select("udp://localhost:3000/topic").isEmpty());
+        assertEquals(1, registry.select(1L).size());
+        assertEquals(1, registry.select(Integer.class).size());
+        assertEquals(1, registry.select(new IllegalStateException()).size());
+        assertTrue(registry.select(Object.class).isEmpty());
+        assertEquals(3, registry.select("orders.eu.created").size());
+        assertEquals(1, registry.select("orders").size());
+        assertEquals(2, registry.select("orders.created").size());
+        assertEquals(1, registry.select("payments.eu.created").size());
+
+        // responds to key.
+        assertTrue(registry.respondsToKey("topic"));
+        assertFalse(registry.respondsToKey("none"));
+        registry.register($("none"), "late");
+        assertTrue(registry.respondsToKey("none"));
+
+        // unregister.
+        assertTrue(registry.unregister("topic"));
+        assertTrue(registry.select("topic").isEmpty());
+
+        // register and cancel in batch.
+        List<Registration<Object, String>> registrations = registry.registerAll(Arrays.asList(
+                Tuples.of($("batch"), "object"),
+                Tuples.of(R("batch.*"), "regex"),
+                Tuples.of(predicate(key -> "batch".equals(key)), "predicate")
+        ));
+        assertEquals(3, registry.select("batch").size());
+        registry.cancelAll(registrations.subList(0, 2));
+        assertEquals(1, registry.select("batch").size());
+        assertTrue(registrations.get(0).isCancelled());
+        registry.clear();
+        assertFalse(registry.respondsToKey("batch"));
+        assertTrue(registrations.get(2).isCancelled());
+    }
+
+
+    @Test
+    public void testLongKey() throws Exception {
+
+        // register.
+        registry.register(longKey(42), "first");
+        registry.register(longKey(42), "second");
+        List<Registration<Object, String>> registrations = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            registrations.add(registry.register(longKey(-i), "value" + i));
+
+        // select without boxing, and boxed.
+        assertEquals(2, registry.selectLong(42L).size());
+        assertEquals(2, registry.select((Object) 42L).size());
+        assertEquals(1, registry.selectLong(-99L).size());
+        assertFalse(registry.respondsToLongKey(43L));
+        assertTrue(registry.select((Object) 42).isEmpty());
+
+        // selectors of other families that may match a long key are consulted as well.
+        Registration<Object, String> registration = registry.register(T(Number.class), "class");
+        assertEquals(3, registry.selectLong(42L).size());
+        assertTrue(registry.respondsToLongKey(43L));
+        registration.cancel();
+        assertFalse(registry.respondsToLongKey(43L));
+
+        // cancel.
+        registry.cancelAll(registrations);
+        assertFalse(registry.respondsToLongKey(-99L));
+        assertEquals(2, registry.selectLong(42L).size());
+
+        // an int key is still matched as an Integer.
+        registry.register($(7), "int");
+        assertEquals(1, registry.select(7).size());
+        assertTrue(registry.respondsToKey(7));
+        assertTrue(registry.selectLong(7).isEmpty());
+    }
+
+
+    @Test
+    public void testKnownMiss() throws Exception {
+
+        // misses are only remembered when asked to.
+        assertTrue(registry.select("miss").isEmpty());
+        assertFalse(registry.isKnownMiss("miss"));
+
+        // a key is only known to miss once it was selected without matches.
+        Registry<Object, String> registry = Registries.createIndexed(true, null, null, null);
+        assertFalse(registry.isKnownMiss("miss"));
+        assertTrue(registry.select("miss").isEmpty());
+        assertTrue(registry.isKnownMiss("miss"));
+
+        // registering a matching selector forgets the miss.
+        registry.register($("miss"), "found");
+        assertFalse(registry.isKnownMiss("miss"));
+        assertEquals(1, registry.select("miss").size());
+    }
+
+
+    @Test
+    public void testRegex() throws Exception {
+
+        // register patterns whose literal prefixes overlap, and patterns without a literal prefix.
+        registry.register(R("ord.*"), "short prefix");
+        registry.register(R("order\\..*"), "any order");
+        registry.register(R("order\\.created"), "created order");
+        registry.register(R("order\\.cr+eated"), "quantified");
+        registry.register(R("order\\.\\d+"), "numbered order");
+        registry.register(R("orders"), "longer prefix");
+        registry.register(R(".*created"), "no prefix");
+        registry.register(R("refund|order\\.created"), "alternation");
+
+        // select, every pattern along the prefix of the key is run.
+        assertEquals(6, registry.select("order.created").size());
+        assertEquals(3, registry.select("order.42").size());
+        assertEquals(1, registry.select("ord").size());
+        assertEquals(2, registry.select("orders").size());
+        assertEquals(1, registry.select("refund").size());
+        assertTrue(registry.select("or").isEmpty());
+
+        // case-insensitive patterns match keys whatever their case.
+        assertTrue(registry.select("ORDER.CREATED").isEmpty());
+        registry.register(R("(?i)order\\.created"), "case-insensitive");
+        registry.register(R("order(?i)\\.CREATED"), "case-insensitive suffix");
+        assertEquals(1, registry.select("ORDER.CREATED").size());
+        assertEquals(1, registry.select("Order.Created").size());
+        assertEquals(4, registry.select("order.CREATED").size());
+        assertEquals(8, registry.select("order.created").size());
+    }
+
+
+    @Test
+    public void testConcurrentSnapshot() throws Exception {
+
+        // selectors without an index of their own are scanned in registration order.
+        int stable = 10;
+        for (int i = 0; i < stable; i++)
+            registry.register(predicate(key -> true), "stable" + i);
+
+        // register pairs and cancel the oldest pair while selecting.
+        int churn = 2_000;
+        AtomicReferenceArray<Registration<Object, String>> churned = new AtomicReferenceArray<>(churn);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        int readers = 2;
+        CountDownLatch finished = new CountDownLatch(readers);
+        for (int r = 0; r < readers; r++) {
+            new Thread(() -> {
+                try {
+                    while (!done.get())
+                        assertSnapshot(registry.select("key"), stable, churned);
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    finished.countDown();
+                }
+            }).start();
+        }
+
+        Deque<List<Registration<Object, String>>> pairs = new ArrayDeque<>();
+        for (int i = 0; i < churn; i += 2) {
+            List<Registration<Object, String>> pair = registry.registerAll(Arrays.asList(
+                    Tuples.of(predicate(key -> true), "churn" + i),
+                    Tuples.of(predicate(key -> true), "churn" + (i + 1))
+            ));
+            churned.set(i, pair.get(0));
+            churned.set(i + 1, pair.get(1));
+            pairs.addLast(pair);
+            if (pairs.size() > 3)
+                registry.cancelAll(pairs.removeFirst());
+            if (i % 10 == 0)
+                Thread.yield();
+        }
+        done.set(true);
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+
+        // and what is left is the last snapshot.
+        assertSnapshot(registry.select("key"), stable, churned);
+        assertEquals(stable + 6, registry.select("key").size());
+    }
+
+
+    /**
+     * Assert that the registrations selected are the stable ones in order, followed by a run of whole pairs registered
+     * in a row, as a single snapshot of the registry holds. A registration cancelled while the snapshot was scanned no
+     * longer matches, so only cancelled registrations may be missing from the run.
+     */
+    private static void assertSnapshot(List<Registration<Object, ? extends String>> selectedRegs, int stable,
+                                       AtomicReferenceArray<Registration<Object, String>> churned) {
+        for (int i = 0; i < stable; i++)
+            assertEquals("stable" + i, selectedRegs.get(i).getObject());
+        List<Integer> present = new ArrayList<>();
+        for (Registration<Object, ? extends String> registration : selectedRegs.subList(stable, selectedRegs.size())) {
+            String object = registration.getObject();
+            assertTrue(object, object.startsWith("churn"));
+            int n = Integer.parseInt(object.substring("churn".length()));
+            assertTrue(object, present.isEmpty() || n > present.get(present.size() - 1));
+            present.add(n);
+        }
+        if (present.isEmpty())
+            return;
+        int first = present.get(0), last = present.get(present.size() - 1);
+        for (int n = first - first % 2; n <= (last | 1); n++) {
+            if (present.contains(n))
+                continue;
+            Registration<Object, String> registration = churned.get(n);
+            assertTrue("churn" + n + " missing from " + present, registration != null && registration.isCancelled());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cn.gitlab.virtualcry.reactor.bus.test.selector;
+
+import cn.gitlab.virtualcry.reactor.bus.Event;
+import cn.gitlab.virtualcry.reactor.bus.EventBus;
+import cn.gitlab.virtualcry.reactor.bus.selector.LongSelector;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.$;
+import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.longKey;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link LongSelector}
+ *
+ * @author VirtualCry
+ */
+public class LongSelectorTest {
+    private Logger                                  logger;
+    private Semaphore                               semaphore;
+
+    private EventBus                                bus;
+
+
+    @Before
+    public void initialize() {
+        this.logger = Loggers.getLogger(this.getClass());
+        this.semaphore = new Semaphore(0);
+
+        // create event bus.
+        this.bus = EventBus.config().get();
+    }
+
+
+    @Test
+    public void test() throws Exception {
+
+        // register.
+        bus.on(longKey(42L), (Event<String> ev) -> {
+            logger.info("Received event. - {}", ev);
+            // release.
+            semaphore.release();
+        });
+
+        // notify
+        bus.notifyLong(42L, Event.wrap("test"));
+
+        // block.
+        semaphore.acquire(1);
+        // sleep.
+        TimeUnit.SECONDS.sleep(1);
+    }
+
+
+    @Test
+    public void testIntKey() throws Exception {
+
+        // register.
+        bus.on($(42), (Event<String> ev) -> semaphore.release());
+        bus.on(longKey(42L), (Event<String> ev) -> {
+            logger.info("Received event on the long key. - {}", ev);
+            semaphore.release(10);
+        });
+
+        // an int key still reaches the Integer selector only.
+        bus.notify(42, Event.wrap("test"));
+
+        // block.
+        assertTrue(semaphore.tryAcquire(1, 10, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(0, semaphore.availablePermits());
+    }
+}
@@ -2,16 +2,29 @@ package cn.gitlab.virtualcry.reactor.bus.test.selector;
 
 import cn.gitlab.virtualcry.reactor.bus.Event;
 import cn.gitlab.virtualcry.reactor.bus.EventBus;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registration;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registries;
+import cn.gitlab.virtualcry.reactor.bus.registry.Registry;
 import cn.gitlab.virtualcry.reactor.bus.selector.UriPathSelector;
+import cn.gitlab.virtualcry.reactor.bus.selector.UriPathTemplate;
 import org.junit.Before;
 import org.junit.Test;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static cn.gitlab.virtualcry.reactor.bus.selector.Selectors.U;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test for {@link UriPathSelector}
@@ -53,4 +66,156 @@ public class UriPathSelectorTest {
         // sleep.
         TimeUnit.SECONDS.sleep(1);
     }
+
+
+    @Test
+    public void testPathParameters() throws Exception {
+
+        // templates of the same pattern share the cached path parameters of a uri.
+        UriPathTemplate template = new UriPathTemplate("/orders/{id}");
+        long hits = UriPathTemplate.getCacheHitCount();
+        Map<String, Object> parameters = template.match("/orders/42");
+        assertEquals("42", parameters.get("id"));
+        assertSame(parameters, new UriPathTemplate("/orders/{id}").match("/orders/42"));
+        assertTrue(UriPathTemplate.getCacheHitCount() > hits);
+
+        // a template with regex syntax in its literal text is matched by its pattern.
+        UriPathTemplate files = new UriPathTemplate("/files/{name}.txt");
+        assertTrue(files.matches("/files/readme.txt"));
+        assertEquals("readme", files.match("/files/readme.txt").get("name"));
+        assertTrue(files.match("/files/readme.md").isEmpty());
+    }
+
+
+    @Test
+    public void testMixedSplat() throws Exception {
+
+        // values are labelled in the order their variables appear, whether a splat comes first or last.
+        Map<String, Object> parameters = new UriPathTemplate("/{kind}/{id}/{rest}**").match("/orders/42/items/7");
+        assertEquals("orders", parameters.get("kind"));
+        assertEquals("42", parameters.get("id"));
+        assertEquals("items/7", parameters.get("rest"));
+
+        parameters = new UriPathTemplate("/{rest}**/{id}").match("/orders/items/7");
+        assertEquals("orders/items", parameters.get("rest"));
+        assertEquals("7", parameters.get("id"));
+
+        // and the same when the template is matched by its pattern.
+        parameters = new UriPathTemplate("/{kind}.json/{rest}**").match("/orders.json/items/7");
+        assertEquals("orders", parameters.get("kind"));
+        assertEquals("items/7", parameters.get("rest"));
+    }
+
+
+    @Test
+    public void testTokensMatchPattern() throws Exception {
+
+        // templates matched segment by segment, next to the patterns they used to compile to.
+        String[][] templates = {
+                { "/{a}/x{b}y/**",      "^/(?<a>[^/.]*)/x(?<b>[^/.]*)y/.*$" },
+                { "/{a}/{rest}**",      "^/(?<a>[^/.]*)/(?<rest>.*)$" },
+                { "/p{a}-{b}q/{c}",     "^/p(?<a>[^/.]*)-(?<b>[^/.]*)q/(?<c>[^/.]*)$" },
+                { "/a**b/{c}",          "^/a.*b/(?<c>[^/.]*)$" },
+                { "/{a}{b}/{c}**-{d}",  "^/(?<a>[^/.]*)(?<b>[^/.]*)/(?<c>.*)-(?<d>[^/.]*)$" },
+        };
+        List<String> paths = Arrays.asList(
+                "", "/", "//", "/x", "/x/", "/x/xy", "/x/xy/", "/x/xzy/z/z", "/x.y/xy/z", "//xy/",
+                "/p1-2q/3", "/p1-2-3q/4", "/pa.b-q/c", "/p-q/", "/p1-2q/3/4",
+                "/a/b/c", "/ab/c", "/a/x/b/c", "/a/b/c/d", "/ab/c.d", "/a-b/c",
+                "/ab/c-d", "/ab/c/d-e-f", "/ab/-", "/a.b/c-d", "/ab/c-d/e");
+
+        for (String[] template : templates) {
+            UriPathTemplate uriPathTemplate = new UriPathTemplate(template[0]);
+            Pattern pattern = Pattern.compile(template[1]);
+            for (String path : paths) {
+                Matcher m = pattern.matcher(path);
+                boolean matches = m.matches();
+                String message = template[0] + " against " + path;
+                assertEquals(message, matches, uriPathTemplate.matches(path));
+                Map<String, Object> parameters = uriPathTemplate.match(path);
+                if (!matches) {
+                    assertTrue(message, parameters.isEmpty());
+                    continue;
+                }
+                for (String name : parameters.keySet()) {
+                    assertEquals(message, m.group(name), parameters.get(name));
+                }
+                assertEquals(message, template[0].split("\\{", -1).length - 1, parameters.size());
+            }
+        }
+    }
+
+
+    @Test
+    public void testSharedEdge() throws Exception {
+
+        // templates with the same shape but different variable names share the edges of an index.
+        Registry<Object, String> registry = Registries.createIndexed(null, null, null);
+        registry.register(U("/users/{id}"), "user");
+        registry.register(U("/users/{uid}"), "same user");
+        registry.register(U("/users/{name}/posts"), "posts");
+        registry.register(U("/users/{user}/posts/{post}"), "post");
+        registry.register(U("/users/{first}-{last}/posts"), "posts by name");
+
+        assertSelected(registry, "/users/7", "user", "id", "7");
+        assertSelected(registry, "/users/7", "same user", "uid", "7");
+        assertEquals(2, registry.select("/users/7").size());
+
+        assertSelected(registry, "/users/7/posts", "posts", "name", "7");
+        assertEquals(1, registry.select("/users/7/posts").size());
+
+        Map<String, Object> parameters = assertSelected(registry, "/users/7/posts/9", "post", "user", "7");
+        assertEquals("9", parameters.get("post"));
+        assertEquals(1, registry.select("/users/7/posts/9").size());
+
+        parameters = assertSelected(registry, "/users/jane-doe/posts", "posts by name", "first", "jane");
+        assertEquals("doe", parameters.get("last"));
+        assertSelected(registry, "/users/jane-doe/posts", "posts", "name", "jane-doe");
+        assertEquals(2, registry.select("/users/jane-doe/posts").size());
+
+        assertTrue(registry.select("/users").isEmpty());
+        assertTrue(registry.select("/users/7/comments").isEmpty());
+    }
+
+
+    @Test
+    public void testSplatInSegment() throws Exception {
+
+        // a splat in the middle of a segment runs on across the following segments.
+        UriPathTemplate template = new UriPathTemplate("/files/img**png");
+        assertTrue(template.matches("/files/imgpng"));
+        assertTrue(template.matches("/files/img1png"));
+        assertTrue(template.matches("/files/img/2018/1png"));
+        assertFalse(template.matches("/files/img1.jpg"));
+        assertFalse(template.matches("/other/img1png"));
+
+        Map<String, Object> parameters = new UriPathTemplate("/files/{name}**-v{version}").match("/files/a/b-c-v2");
+        assertEquals("a/b-c", parameters.get("name"));
+        assertEquals("2", parameters.get("version"));
+
+        // and matches the same way in an index.
+        Registry<Object, String> registry = Registries.createIndexed(null, null, null);
+        registry.register(U("/files/img**png"), "images");
+        registry.register(U("/files/{name}**-v{version}"), "versions");
+        registry.register(U("/files/{name}"), "file");
+        assertEquals(1, registry.select("/files/img/2018/1png").size());
+        assertEquals(3, registry.select("/files/img-v2png").size());
+        assertEquals(1, registry.select("/files/a/b-c-v2").size());
+        assertEquals(2, registry.select("/files/a-v2").size());
+        assertTrue(registry.select("/files/a/b").isEmpty());
+    }
+
+
+    private static Map<String, Object> assertSelected(Registry<Object, String> registry, String path,
+                                                      String object, String name, Object value) {
+        for (Registration<Object, ? extends String> registration : registry.select(path)) {
+            if (object.equals(registration.getObject())) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> parameters = registration.getSelector().getHeaderResolver().resolve(path);
+                assertEquals(value, parameters.get(name));
+                return parameters;
+            }
+        }
+        throw new AssertionError(object + " not selected by " + path);
+    }
 }